@@ -0,0 +1,73 @@
+package benchmarks;
+
+import benchmarks.records.NarrowRecord;
+import benchmarks.records.WideRecord;
+import tlb1.radix.database.records.Record;
+import tlb1.radix.database.services.SQLiteService;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * The record shapes shared by the benchmarks, "narrow" has 2 columns and "wide" has 12 columns of mixed types
+ */
+final class BenchmarkRecords {
+    static final String NARROW = "narrow";
+    static final String WIDE = "wide";
+
+    private BenchmarkRecords() {
+
+    }
+
+    static Class<? extends Record> type(String shape) {
+        return switch (shape) {
+            case NARROW -> NarrowRecord.class;
+            case WIDE -> WideRecord.class;
+            default -> throw new IllegalArgumentException("Unknown record shape " + shape);
+        };
+    }
+
+    static Record create(String shape, long id) {
+        return shape.equals(NARROW) ? new NarrowRecord(id) : new WideRecord(id);
+    }
+
+    /**
+     * @return the records with the identifiers firstId until firstId + count
+     */
+    static List<Record> create(String shape, long firstId, int count) {
+        List<Record> records = new ArrayList<>(count);
+        for (long id = firstId; id < firstId + count; id++) {
+            records.add(create(shape, id));
+        }
+        return records;
+    }
+
+    /**
+     * @return a connected service on a new temporary database with the table of the shape
+     */
+    static SQLiteService open(String shape) throws IOException, SQLException {
+        return open(shape, 0);
+    }
+
+    /**
+     * @param readerCount the amount of read-only connections
+     * @return a connected service on a new temporary database with the table of the shape
+     */
+    static SQLiteService open(String shape, int readerCount) throws IOException, SQLException {
+        File file = File.createTempFile("radix-benchmark", ".db");
+        if (!file.delete()) throw new IOException("Could not prepare database file " + file);
+        SQLiteService service = new SQLiteService(file.getPath(), readerCount);
+        service.createConnection();
+        service.setLogLevel(Level.OFF);
+        service.registerTable(type(shape));
+        return service;
+    }
+
+    static void close(SQLiteService service) throws SQLException {
+        if (service != null) service.eradicate();
+    }
+}
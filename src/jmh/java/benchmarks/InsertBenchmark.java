@@ -0,0 +1,51 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tlb1.radix.database.records.Record;
+import tlb1.radix.database.services.SQLiteService;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts a collection of records into an empty table, every invocation uses a new database
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = 1)
+@Measurement(iterations = 5, batchSize = 1)
+@Fork(1)
+public class InsertBenchmark {
+
+    @Param({BenchmarkRecords.NARROW, BenchmarkRecords.WIDE})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private List<Record> records;
+    private SQLiteService service;
+
+    @Setup(Level.Trial)
+    public void createRecords() {
+        records = BenchmarkRecords.create(shape, 1, rows);
+    }
+
+    @Setup(Level.Iteration)
+    public void openService() throws IOException, SQLException {
+        service = BenchmarkRecords.open(shape);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeService() throws SQLException {
+        BenchmarkRecords.close(service);
+    }
+
+    @Benchmark
+    public void insertCollection() {
+        service.insert(records);
+    }
+}
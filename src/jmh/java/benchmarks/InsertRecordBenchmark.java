@@ -0,0 +1,41 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tlb1.radix.database.services.SQLiteService;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts single records, every insert is its own transaction
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertRecordBenchmark {
+
+    @Param({BenchmarkRecords.NARROW, BenchmarkRecords.WIDE})
+    public String shape;
+
+    private SQLiteService service;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void openService() throws IOException, SQLException {
+        service = BenchmarkRecords.open(shape);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeService() throws SQLException {
+        BenchmarkRecords.close(service);
+    }
+
+    @Benchmark
+    public void insertRecord() {
+        service.insert(BenchmarkRecords.create(shape, ++nextId));
+    }
+}
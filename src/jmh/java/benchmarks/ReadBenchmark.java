@@ -0,0 +1,78 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tlb1.radix.database.records.Record;
+import tlb1.radix.database.services.SQLiteService;
+import tlb1.radix.database.services.TableReader;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reads and maps the records of a filled table
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+
+    @Param({BenchmarkRecords.NARROW, BenchmarkRecords.WIDE})
+    public String shape;
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private SQLiteService service;
+    private Class<? extends Record> type;
+
+    @Setup(Level.Trial)
+    public void fillTable() throws IOException, SQLException {
+        service = BenchmarkRecords.open(shape, 4);
+        type = BenchmarkRecords.type(shape);
+        service.insert(BenchmarkRecords.create(shape, 1, rows));
+    }
+
+    @TearDown(Level.Trial)
+    public void closeService() throws SQLException {
+        BenchmarkRecords.close(service);
+    }
+
+    @Benchmark
+    public List<? extends Record> getRecords() {
+        return service.getRecords(type);
+    }
+
+    @Benchmark
+    public List<? extends Record> getRecordsInParallel() {
+        return service.getRecordsInParallel(type);
+    }
+
+    /**
+     * Maps the rows using the reader of the public api, without the statement cache
+     */
+    @Benchmark
+    public List<? extends Record> tableReader() throws Exception {
+        return new TableReader<>(type, service).call();
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        try (Stream<? extends Record> records = service.stream(type)) {
+            records.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object findById() {
+        return service.findById(type, ThreadLocalRandom.current().nextLong(1, rows + 1L)).orElseThrow();
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import benchmarks.records.NarrowRecord;
+import org.openjdk.jmh.annotations.*;
+import tlb1.radix.database.services.RecordCache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up cached records, the unbounded cache stores the long identifiers without boxing them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordCacheBenchmark {
+
+    @Param({"unbounded", "bounded"})
+    public String kind;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private RecordCache<NarrowRecord> cache;
+
+    @Setup(Level.Trial)
+    public void fillCache() {
+        cache = kind.equals("bounded") ? new RecordCache<>(NarrowRecord.class, size) : new RecordCache<>(NarrowRecord.class);
+        for (long id = 1; id <= size; id++) {
+            cache.put(new NarrowRecord(id));
+        }
+    }
+
+    @Benchmark
+    public NarrowRecord getPrimitive() {
+        return cache.getIfPresent(ThreadLocalRandom.current().nextLong(1, size + 1L));
+    }
+
+    @Benchmark
+    public NarrowRecord getBoxed() {
+        return cache.getIfPresent((Object) ThreadLocalRandom.current().nextLong(1, size + 1L));
+    }
+
+    @Benchmark
+    public void put() {
+        cache.put(new NarrowRecord(ThreadLocalRandom.current().nextLong(1, size + 1L)));
+    }
+}
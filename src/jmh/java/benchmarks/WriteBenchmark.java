@@ -0,0 +1,73 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tlb1.radix.database.records.Record;
+import tlb1.radix.database.services.SQLiteService;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updates and deletes the records of a table that is filled before every iteration
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = 1)
+@Measurement(iterations = 5, batchSize = 1)
+@Fork(1)
+public class WriteBenchmark {
+
+    @Param({BenchmarkRecords.NARROW, BenchmarkRecords.WIDE})
+    public String shape;
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private List<Record> records;
+    private SQLiteService service;
+
+    @Setup(Level.Iteration)
+    public void fillTable() throws IOException, SQLException {
+        records = BenchmarkRecords.create(shape, 1, rows);
+        service = BenchmarkRecords.open(shape);
+        service.insert(records);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeService() throws SQLException {
+        BenchmarkRecords.close(service);
+    }
+
+    @Benchmark
+    public void updateCollection() {
+        service.update(records);
+    }
+
+    /**
+     * Updates every record using its own transaction
+     */
+    @Benchmark
+    public void updateRecords() {
+        for (Record record : records) {
+            service.update(record);
+        }
+    }
+
+    @Benchmark
+    public void deleteCollection() {
+        service.delete(records);
+    }
+
+    /**
+     * Deletes every record using its own transaction
+     */
+    @Benchmark
+    public void deleteRecords() {
+        for (Record record : records) {
+            service.delete(record);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package benchmarks.records;
+
+import tlb1.radix.database.FieldType;
+import tlb1.radix.database.annotations.DBField;
+import tlb1.radix.database.annotations.Identifier;
+import tlb1.radix.database.annotations.TableName;
+import tlb1.radix.database.records.Record;
+
+@TableName("narrow_records")
+public class NarrowRecord implements Record {
+
+    @Identifier
+    @DBField(FieldType.LONG)
+    public long id;
+
+    @DBField(FieldType.INTEGER)
+    public int value;
+
+    public NarrowRecord(long id) {
+        this.id = id;
+        this.value = (int) id;
+    }
+
+    public NarrowRecord() {
+
+    }
+}
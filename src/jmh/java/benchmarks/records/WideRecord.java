@@ -0,0 +1,69 @@
+package benchmarks.records;
+
+import tlb1.radix.database.FieldType;
+import tlb1.radix.database.annotations.DBField;
+import tlb1.radix.database.annotations.Identifier;
+import tlb1.radix.database.annotations.TableName;
+import tlb1.radix.database.records.Record;
+
+import java.util.UUID;
+
+@TableName("wide_records")
+public class WideRecord implements Record {
+
+    @Identifier
+    @DBField(FieldType.LONG)
+    public long id;
+
+    @DBField(FieldType.INTEGER)
+    public int count;
+
+    @DBField(FieldType.LONG)
+    public long total;
+
+    @DBField(FieldType.DOUBLE)
+    public double ratio;
+
+    @DBField(FieldType.FLOAT)
+    public float weight;
+
+    @DBField(FieldType.SHORT)
+    public short code;
+
+    @DBField(FieldType.BYTE)
+    public byte flags;
+
+    @DBField(FieldType.BOOLEAN)
+    public boolean active;
+
+    @DBField(FieldType.TEXT)
+    public String name;
+
+    @DBField(FieldType.BIG_TEXT)
+    public String description;
+
+    @DBField(FieldType.UUID)
+    public UUID reference;
+
+    @DBField(FieldType.INTEGER)
+    public Integer optional;
+
+    public WideRecord(long id) {
+        this.id = id;
+        count = (int) id;
+        total = id * 31;
+        ratio = id / 7.0;
+        weight = id / 3f;
+        code = (short) id;
+        flags = (byte) id;
+        active = id % 2 == 0;
+        name = "record-" + id;
+        description = "A wide benchmark record with a longer text column, number " + id;
+        reference = new UUID(id, ~id);
+        optional = id % 3 == 0 ? null : (int) id;
+    }
+
+    public WideRecord() {
+
+    }
+}
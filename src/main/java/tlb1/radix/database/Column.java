@@ -7,11 +7,32 @@ public class Column {
     private final String name;
 
     private final Field field;
+    private final ValueKind kind;
+    private final ColumnAccessor accessor;
+    private final TypeCodec<?> codec;
 
     public Column(FieldType columnType, String name, Field field) {
+        this(columnType, name, field, ColumnAccessor.of(field));
+    }
+
+    /**
+     * @param accessor the precompiled accessor used to read and write the column value
+     */
+    public Column(FieldType columnType, String name, Field field, ColumnAccessor accessor) {
+        this(columnType, name, field, accessor, null);
+    }
+
+    /**
+     * @param accessor the precompiled accessor used to read and write the column value
+     * @param codec the codec of the column value, null if the type of the value is not supported
+     */
+    public Column(FieldType columnType, String name, Field field, ColumnAccessor accessor, TypeCodec<?> codec) {
         this.columnType = columnType;
         this.name = name;
         this.field = field;
+        this.kind = ValueKind.of(field.getType());
+        this.accessor = accessor;
+        this.codec = codec;
     }
 
     public FieldType getType() {
@@ -25,4 +46,26 @@ public class Column {
     public Field getField() {
         return field;
     }
+
+    /**
+     * @return the way values of this column are held in memory
+     */
+    public ValueKind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the precompiled accessor of the column value
+     */
+    public ColumnAccessor getAccessor() {
+        return accessor;
+    }
+
+    /**
+     * @return the codec of the column value, for references the codec of the identifier of the referred record.
+     * null if the type of the value is not supported
+     */
+    public TypeCodec<?> getCodec() {
+        return codec;
+    }
 }
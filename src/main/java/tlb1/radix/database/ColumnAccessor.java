@@ -0,0 +1,184 @@
+package tlb1.radix.database;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Objects;
+
+/**
+ * Precompiled getters and setters of a column field.
+ * The method handles are resolved once, so reading or writing a value does not go through core reflection
+ */
+public class ColumnAccessor {
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType LONG_GETTER = MethodType.methodType(long.class, Object.class);
+    private static final MethodType DOUBLE_GETTER = MethodType.methodType(double.class, Object.class);
+    private static final MethodType OBJECT_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType LONG_SETTER = MethodType.methodType(void.class, Object.class, long.class);
+    private static final MethodType DOUBLE_SETTER = MethodType.methodType(void.class, Object.class, double.class);
+
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle longGetter;
+    private final MethodHandle doubleGetter;
+    private final MethodHandle setter;
+    private final MethodHandle longSetter;
+    private final MethodHandle doubleSetter;
+
+    private ColumnAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+        this.field = field;
+        this.getter = getter.asType(OBJECT_GETTER);
+        ValueKind kind = ValueKind.of(getter.type().returnType());
+        longGetter = kind == ValueKind.LONG ? MethodHandles.explicitCastArguments(getter, LONG_GETTER) : null;
+        doubleGetter = kind == ValueKind.DOUBLE ? MethodHandles.explicitCastArguments(getter, DOUBLE_GETTER) : null;
+
+        this.setter = setter == null ? null : setter.asType(OBJECT_SETTER);
+        longSetter = setter != null && kind == ValueKind.LONG ? MethodHandles.explicitCastArguments(setter, LONG_SETTER) : null;
+        doubleSetter = setter != null && kind == ValueKind.DOUBLE ? MethodHandles.explicitCastArguments(setter, DOUBLE_SETTER) : null;
+    }
+
+    /**
+     * @param field the public field to access
+     * @return the accessor of the field value
+     * @throws IllegalArgumentException if the field cannot be accessed
+     */
+    public static ColumnAccessor of(Field field) {
+        return new ColumnAccessor(field, getter(field), setter(field));
+    }
+
+    /**
+     * @param field the public field that refers to another record
+     * @param identifier the identifier field of the referred record type
+     * @return the accessor that reads the identifier of the referred record, or null if there is no referred record
+     * @throws IllegalArgumentException if one of the fields cannot be accessed
+     */
+    public static ColumnAccessor reference(Field field, Field identifier) {
+        MethodHandle identifierGetter = getter(identifier).asType(OBJECT_GETTER);
+        try {
+            MethodHandle isNull = lookup.findStatic(Objects.class, "isNull", MethodType.methodType(boolean.class, Object.class));
+            MethodHandle nullValue = MethodHandles.dropArguments(MethodHandles.constant(Object.class, null), 0, Object.class);
+            MethodHandle nullSafeIdentifier = MethodHandles.guardWithTest(isNull, nullValue, identifierGetter);
+            MethodHandle getter = MethodHandles.filterReturnValue(getter(field).asType(OBJECT_GETTER), nullSafeIdentifier);
+            return new ColumnAccessor(field, getter, setter(field));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Could not create reference accessor for " + field.getName());
+        }
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            field.trySetAccessible();
+            return lookup.unreflectGetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Field %s does not have a public accessor".formatted(field.getName()));
+        }
+    }
+
+    /**
+     * @return null if the field cannot be written, for example when it is final
+     */
+    private static MethodHandle setter(Field field) {
+        try {
+            return lookup.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the field this accessor is compiled for
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * @param record the record to read
+     * @return the (boxed) value of the column
+     */
+    public Object get(Object record) {
+        try {
+            return (Object) getter.invokeExact(record);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Reads integral and boolean primitives without boxing, booleans are returned as 1 or 0
+     * @param record the record to read
+     * @return the value of the column
+     */
+    public long getLong(Object record) {
+        if (longGetter == null) throw new IllegalStateException("Field %s is not an integral primitive".formatted(field.getName()));
+        try {
+            return (long) longGetter.invokeExact(record);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Reads floating point primitives without boxing
+     * @param record the record to read
+     * @return the value of the column
+     */
+    public double getDouble(Object record) {
+        if (doubleGetter == null) throw new IllegalStateException("Field %s is not a floating point primitive".formatted(field.getName()));
+        try {
+            return (double) doubleGetter.invokeExact(record);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * @param record the record to write
+     * @param value the (boxed) value of the field
+     */
+    public void set(Object record, Object value) {
+        if (setter == null) throw new IllegalStateException("Field %s cannot be written".formatted(field.getName()));
+        try {
+            setter.invokeExact(record, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Writes integral and boolean primitives without boxing, booleans are written using the lowest bit
+     * @param record the record to write
+     * @param value the value of the field
+     */
+    public void setLong(Object record, long value) {
+        if (longSetter == null) throw new IllegalStateException("Field %s cannot be written as an integral primitive".formatted(field.getName()));
+        try {
+            longSetter.invokeExact(record, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Writes floating point primitives without boxing
+     * @param record the record to write
+     * @param value the value of the field
+     */
+    public void setDouble(Object record, double value) {
+        if (doubleSetter == null) throw new IllegalStateException("Field %s cannot be written as a floating point primitive".formatted(field.getName()));
+        try {
+            doubleSetter.invokeExact(record, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException runtimeException) return runtimeException;
+        if (e instanceof Error error) throw error;
+        return new IllegalStateException(e);
+    }
+}
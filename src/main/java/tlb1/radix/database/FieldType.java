@@ -1,13 +1,19 @@
 package tlb1.radix.database;
 
+/**
+ * The declared column types, the codec of a field decides how its values are stored.
+ * The built-in codecs store values in their native SQLite storage class:
+ * booleans as 0 or 1, dates as milliseconds since the epoch and UUIDs as 16 byte blobs
+ */
 public enum FieldType {
     SMALL_TEXT("VARCHAR(25)"), TEXT("VARCHAR(50)"), BIG_TEXT("VARCHAR(250)"),
     IDENTIFIER("int"),
     LONG("BIGINT"),INTEGER("INT"), SHORT("SMALLINT"), BYTE("TINYINT"),
     FLOAT("FLOAT"), DOUBLE("DOUBLE"),
-    BOOLEAN("BOOL"),
-    DATE("DATE"),
-    UUID("VARCHAR(36)");
+    BOOLEAN("INTEGER"),
+    DATE("INTEGER"), TIMESTAMP("INTEGER"),
+    DECIMAL("TEXT"),
+    UUID("BLOB"), BLOB("BLOB");
     private final String typeName;
 
     FieldType(String typeName) {
@@ -0,0 +1,29 @@
+package tlb1.radix.database;
+
+/**
+ * The comparison operators that can be used in query conditions
+ */
+public enum Operator {
+    EQ("="), NE("<>"), GT(">"), GE(">="), LT("<"), LE("<="),
+    LIKE("LIKE"),
+    IN("IN"),
+    IS_NULL("IS NULL"), IS_NOT_NULL("IS NOT NULL");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * @return if the operator is used without a value
+     */
+    public boolean isUnary() {
+        return this == IS_NULL || this == IS_NOT_NULL;
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
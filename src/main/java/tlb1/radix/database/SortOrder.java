@@ -0,0 +1,5 @@
+package tlb1.radix.database;
+
+public enum SortOrder {
+    ASC, DESC
+}
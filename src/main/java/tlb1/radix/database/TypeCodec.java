@@ -0,0 +1,103 @@
+package tlb1.radix.database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converts the values of a java type to and from their SQL representation.
+ * Columns of primitive types are bound and read using the long and double methods, so their values are never boxed
+ * @param <T> the java type, the boxed type for primitives
+ */
+public interface TypeCodec<T> {
+
+    /**
+     * @return the declared column type of fields without a <b>@DBField</b>
+     */
+    FieldType getFieldType();
+
+    /**
+     * @param value the value to bind, never null
+     * @throws SQLException if the value cannot be bound
+     */
+    void bind(PreparedStatement statement, int index, T value) throws SQLException;
+
+    /**
+     * @return the value of the column in the current row, null if it is NULL
+     * @throws SQLException if the value cannot be read
+     */
+    T read(ResultSet dataSet, int index) throws SQLException;
+
+    /**
+     * Binds integral and boolean primitives, booleans are passed as 1 or 0
+     */
+    default void bindLong(PreparedStatement statement, int index, long value) throws SQLException {
+        statement.setLong(index, value);
+    }
+
+    /**
+     * Reads integral and boolean primitives, booleans are returned as 1 or 0. NULL is read as 0
+     */
+    default long readLong(ResultSet dataSet, int index) throws SQLException {
+        return dataSet.getLong(index);
+    }
+
+    /**
+     * Binds floating point primitives
+     */
+    default void bindDouble(PreparedStatement statement, int index, double value) throws SQLException {
+        statement.setDouble(index, value);
+    }
+
+    /**
+     * Reads floating point primitives, NULL is read as 0
+     */
+    default double readDouble(ResultSet dataSet, int index) throws SQLException {
+        return dataSet.getDouble(index);
+    }
+
+    /**
+     * Binds a value of which the type is only known at runtime
+     * @param value the value to bind, never null
+     * @throws ClassCastException if the value is not of the type of the codec
+     */
+    @SuppressWarnings("unchecked")
+    default void bindObject(PreparedStatement statement, int index, Object value) throws SQLException {
+        bind(statement, index, (T) value);
+    }
+
+    /**
+     * @param fieldType the declared column type
+     * @param binder binds non-null values
+     * @param reader reads the value of a column, null if it is NULL
+     * @return the codec that uses the functions
+     */
+    static <T> TypeCodec<T> of(FieldType fieldType, Binder<T> binder, Reader<T> reader) {
+        return new TypeCodec<>() {
+            @Override
+            public FieldType getFieldType() {
+                return fieldType;
+            }
+
+            @Override
+            public void bind(PreparedStatement statement, int index, T value) throws SQLException {
+                binder.bind(statement, index, value);
+            }
+
+            @Override
+            public T read(ResultSet dataSet, int index) throws SQLException {
+                return reader.read(dataSet, index);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement statement, int index, T value) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface Reader<T> {
+        T read(ResultSet dataSet, int index) throws SQLException;
+    }
+}
@@ -0,0 +1,233 @@
+package tlb1.radix.database;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The codecs of a service, looked up by the java type of a field or value.
+ * Built-in codecs are registered for all primitives and their boxed types, String, UUID, Date, Instant, LocalDate,
+ * BigDecimal and byte[]. Enums are stored by name unless another codec is registered for them.
+ * Codecs are resolved when a table is registered, so they should be registered before the tables that use them
+ */
+public class TypeCodecs {
+    public static final TypeCodec<Long> LONG = TypeCodec.of(FieldType.LONG,
+            (statement, index, value) -> statement.setLong(index, value),
+            (dataSet, index) -> nullable(dataSet, dataSet.getLong(index)));
+    public static final TypeCodec<Integer> INTEGER = TypeCodec.of(FieldType.INTEGER,
+            (statement, index, value) -> statement.setInt(index, value),
+            (dataSet, index) -> nullable(dataSet, dataSet.getInt(index)));
+    public static final TypeCodec<Short> SHORT = TypeCodec.of(FieldType.SHORT,
+            (statement, index, value) -> statement.setShort(index, value),
+            (dataSet, index) -> nullable(dataSet, dataSet.getShort(index)));
+    public static final TypeCodec<Byte> BYTE = TypeCodec.of(FieldType.BYTE,
+            (statement, index, value) -> statement.setByte(index, value),
+            (dataSet, index) -> nullable(dataSet, dataSet.getByte(index)));
+    public static final TypeCodec<Double> DOUBLE = TypeCodec.of(FieldType.DOUBLE,
+            (statement, index, value) -> statement.setDouble(index, value),
+            (dataSet, index) -> nullable(dataSet, dataSet.getDouble(index)));
+    public static final TypeCodec<Float> FLOAT = TypeCodec.of(FieldType.FLOAT,
+            (statement, index, value) -> statement.setFloat(index, value),
+            (dataSet, index) -> nullable(dataSet, dataSet.getFloat(index)));
+    public static final TypeCodec<Character> CHARACTER = TypeCodec.of(FieldType.SMALL_TEXT,
+            (statement, index, value) -> statement.setString(index, value.toString()),
+            (dataSet, index) -> {
+                String value = dataSet.getString(index);
+                return value == null || value.isEmpty() ? null : value.charAt(0);
+            });
+    public static final TypeCodec<String> STRING = TypeCodec.of(FieldType.TEXT,
+            PreparedStatement::setString, ResultSet::getString);
+    public static final TypeCodec<byte[]> BYTES = TypeCodec.of(FieldType.BLOB,
+            PreparedStatement::setBytes, ResultSet::getBytes);
+    public static final TypeCodec<Boolean> BOOLEAN = new BooleanCodec();
+
+    /**
+     * UUIDs are stored as 16 byte blobs, older databases may contain the text representation
+     */
+    public static final TypeCodec<UUID> UUID_BYTES = TypeCodec.of(FieldType.UUID,
+            (statement, index, value) -> statement.setBytes(index, ByteBuffer.allocate(16)
+                    .putLong(value.getMostSignificantBits())
+                    .putLong(value.getLeastSignificantBits())
+                    .array()),
+            (dataSet, index) -> {
+                Object value = dataSet.getObject(index);
+                if (value == null) return null;
+                if (value instanceof byte[] bytes) {
+                    if (bytes.length != 16) throw new SQLException("A UUID requires 16 bytes instead of " + bytes.length);
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    return new UUID(buffer.getLong(), buffer.getLong());
+                }
+                return UUID.fromString(value.toString());
+            });
+
+    /**
+     * Dates are stored as milliseconds since the epoch, older databases may contain the text yyyy-mm-dd
+     */
+    public static final TypeCodec<Date> DATE = TypeCodec.of(FieldType.DATE,
+            (statement, index, value) -> statement.setLong(index, value.getTime()),
+            (dataSet, index) -> {
+                Object value = dataSet.getObject(index);
+                if (value == null) return null;
+                if (value instanceof Number number) return new Date(number.longValue());
+                return Date.valueOf(value.toString());
+            });
+
+    /**
+     * Instants are stored as milliseconds since the epoch, smaller units are truncated
+     */
+    public static final TypeCodec<Instant> INSTANT = TypeCodec.of(FieldType.TIMESTAMP,
+            (statement, index, value) -> statement.setLong(index, value.toEpochMilli()),
+            (dataSet, index) -> {
+                Object value = dataSet.getObject(index);
+                if (value == null) return null;
+                if (value instanceof Number number) return Instant.ofEpochMilli(number.longValue());
+                return Instant.parse(value.toString());
+            });
+
+    /**
+     * Local dates are stored as days since the epoch
+     */
+    public static final TypeCodec<LocalDate> LOCAL_DATE = TypeCodec.of(FieldType.DATE,
+            (statement, index, value) -> statement.setLong(index, value.toEpochDay()),
+            (dataSet, index) -> {
+                Object value = dataSet.getObject(index);
+                if (value == null) return null;
+                if (value instanceof Number number) return LocalDate.ofEpochDay(number.longValue());
+                return LocalDate.parse(value.toString());
+            });
+
+    /**
+     * Decimals are stored as text, so no precision is lost
+     */
+    public static final TypeCodec<BigDecimal> DECIMAL = TypeCodec.of(FieldType.DECIMAL,
+            (statement, index, value) -> statement.setString(index, value.toString()),
+            (dataSet, index) -> {
+                String value = dataSet.getString(index);
+                return value == null ? null : new BigDecimal(value);
+            });
+
+    private final Map<Class<?>, TypeCodec<?>> codecs = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry with the built-in codecs
+     */
+    public TypeCodecs() {
+        register(long.class, Long.class, LONG);
+        register(int.class, Integer.class, INTEGER);
+        register(short.class, Short.class, SHORT);
+        register(byte.class, Byte.class, BYTE);
+        register(double.class, Double.class, DOUBLE);
+        register(float.class, Float.class, FLOAT);
+        register(boolean.class, Boolean.class, BOOLEAN);
+        register(char.class, Character.class, CHARACTER);
+        register(String.class, STRING);
+        register(byte[].class, BYTES);
+        register(UUID.class, UUID_BYTES);
+        register(Date.class, DATE);
+        register(Instant.class, INSTANT);
+        register(LocalDate.class, LOCAL_DATE);
+        register(BigDecimal.class, DECIMAL);
+    }
+
+    /**
+     * Registers the codec of a type, replacing the codec that was registered for it
+     * @param type the java type, registering a primitive type does not register its boxed type
+     * @param codec the codec of the type
+     */
+    public <T> void register(Class<T> type, TypeCodec<? super T> codec) {
+        if (type == null || codec == null) throw new IllegalArgumentException("Type and codec should not be null");
+        codecs.put(type, codec);
+    }
+
+    private <T> void register(Class<?> primitive, Class<T> boxed, TypeCodec<T> codec) {
+        codecs.put(primitive, codec);
+        codecs.put(boxed, codec);
+    }
+
+    /**
+     * @param type the java type of a field or value
+     * @return the codec of the type, null if the type is not supported
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TypeCodec<?> get(Class<?> type) {
+        TypeCodec<?> codec = codecs.get(type);
+        if (codec != null) return codec;
+        // Constants with a body are subclasses of their enum
+        Class<?> enumType = type.isEnum() ? type : type.getSuperclass() != null && type.getSuperclass().isEnum() ? type.getSuperclass() : null;
+        if (enumType == null) return null;
+        return codecs.computeIfAbsent(enumType, key -> byName((Class) key));
+    }
+
+    /**
+     * @param type the enum type
+     * @return a codec that stores the constants by name
+     */
+    public static <E extends Enum<E>> TypeCodec<E> byName(Class<E> type) {
+        return TypeCodec.of(FieldType.TEXT,
+                (statement, index, value) -> statement.setString(index, value.name()),
+                (dataSet, index) -> {
+                    String value = dataSet.getString(index);
+                    return value == null ? null : Enum.valueOf(type, value);
+                });
+    }
+
+    /**
+     * The ordinals change when constants are reordered, so this should only be used for enums of which the order is fixed
+     * @param type the enum type
+     * @return a codec that stores the constants by ordinal
+     */
+    public static <E extends Enum<E>> TypeCodec<E> byOrdinal(Class<E> type) {
+        E[] constants = type.getEnumConstants();
+        return TypeCodec.of(FieldType.INTEGER,
+                (statement, index, value) -> statement.setInt(index, value.ordinal()),
+                (dataSet, index) -> {
+                    int value = dataSet.getInt(index);
+                    if (dataSet.wasNull()) return null;
+                    if (value < 0 || value >= constants.length) {
+                        throw new SQLException("%d is not an ordinal of %s".formatted(value, type.getName()));
+                    }
+                    return constants[value];
+                });
+    }
+
+    private static <T> T nullable(ResultSet dataSet, T value) throws SQLException {
+        return dataSet.wasNull() ? null : value;
+    }
+
+    /**
+     * Booleans are stored as 0 or 1, older databases may contain the text true or false
+     */
+    private static class BooleanCodec implements TypeCodec<Boolean> {
+        @Override
+        public FieldType getFieldType() {
+            return FieldType.BOOLEAN;
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int index, Boolean value) throws SQLException {
+            statement.setInt(index, value ? 1 : 0);
+        }
+
+        @Override
+        public Boolean read(ResultSet dataSet, int index) throws SQLException {
+            Object value = dataSet.getObject(index);
+            if (value == null) return null;
+            if (value instanceof Number number) return number.longValue() != 0;
+            String text = value.toString();
+            return text.equalsIgnoreCase("true") || text.equals("1");
+        }
+
+        @Override
+        public long readLong(ResultSet dataSet, int index) throws SQLException {
+            return read(dataSet, index) == Boolean.TRUE ? 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package tlb1.radix.database;
+
+/**
+ * The way values of a column are held in memory,
+ * primitive values are kept unboxed wherever possible
+ */
+public enum ValueKind {
+    LONG, DOUBLE, OBJECT;
+
+    /**
+     * @param type the java type of the field
+     * @return LONG for integral and boolean primitives, DOUBLE for floating point primitives, otherwise OBJECT
+     */
+    public static ValueKind of(Class<?> type) {
+        if (type == long.class || type == int.class || type == short.class || type == byte.class || type == boolean.class) return LONG;
+        if (type == double.class || type == float.class) return DOUBLE;
+        return OBJECT;
+    }
+}
@@ -0,0 +1,24 @@
+package tlb1.radix.database.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Creates a database index for the field,
+ * fields that share the same index name are combined into a single composite index
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Indexed {
+
+    /**
+     * @return the name of the index, the fields with the same name are indexed in declaration order.
+     * A separate index is created for the field when the name is empty
+     */
+    String value() default "";
+
+    /**
+     * @return if the indexed values should be unique
+     */
+    boolean unique() default false;
+}
@@ -0,0 +1,116 @@
+package tlb1.radix.database.records;
+
+import tlb1.radix.database.Column;
+import tlb1.radix.database.ValueKind;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A column ordered buffer of record values,
+ * primitive columns are stored in primitive arrays so no values have to be boxed.
+ * The buffer can be cleared and refilled for every batch
+ */
+public class RecordBuffer {
+    private final List<Column> columns;
+    private final ValueKind[] kinds;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final Object[][] objects;
+    private final int capacity;
+    private int size;
+
+    /**
+     * @param columns the columns in the order they are bound
+     * @param capacity the maximum amount of rows the buffer can hold
+     */
+    public RecordBuffer(List<Column> columns, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity should be at least 1");
+        this.columns = List.copyOf(columns);
+        this.capacity = capacity;
+        kinds = new ValueKind[columns.size()];
+        longs = new long[columns.size()][];
+        doubles = new double[columns.size()][];
+        objects = new Object[columns.size()][];
+
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = columns.get(i).getKind();
+            switch (kinds[i]) {
+                case LONG -> longs[i] = new long[capacity];
+                case DOUBLE -> doubles[i] = new double[capacity];
+                default -> objects[i] = new Object[capacity];
+            }
+        }
+    }
+
+    /**
+     * Reserves the next row of the buffer
+     * @return the index of the reserved row
+     * @throws IllegalStateException if the buffer is full
+     */
+    public int nextRow() {
+        if (isFull()) throw new IllegalStateException("Record buffer is full");
+        return size++;
+    }
+
+    public void setLong(int column, int row, long value) {
+        longs[column][row] = value;
+    }
+
+    public void setDouble(int column, int row, double value) {
+        doubles[column][row] = value;
+    }
+
+    public void setObject(int column, int row, Object value) {
+        objects[column][row] = value;
+    }
+
+    public long getLong(int column, int row) {
+        return longs[column][row];
+    }
+
+    public double getDouble(int column, int row) {
+        return doubles[column][row];
+    }
+
+    public Object getObject(int column, int row) {
+        return objects[column][row];
+    }
+
+    /**
+     * @return the way values of the column are stored
+     */
+    public ValueKind getKind(int column) {
+        return kinds[column];
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Empties the buffer so it can be reused, the arrays themselves are kept
+     */
+    public void clear() {
+        for (Object[] values : objects) {
+            if (values != null) Arrays.fill(values, 0, size, null);
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,203 @@
+package tlb1.radix.database.services;
+
+import tlb1.radix.database.records.Record;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Executes the operations of a service asynchronously.
+ * The operations run on virtual threads when the runtime supports them, otherwise on a fixed pool of daemon threads.
+ * The amount of operations that use the connections at the same time is limited,
+ * excess operations wait for a permit without blocking the calling thread
+ */
+public class AsyncDBService implements AutoCloseable {
+    /**
+     * The default amount of operations per connection that may run at the same time
+     */
+    public static final int DEFAULT_IN_FLIGHT_PER_CONNECTION = 4;
+
+    private final DBService service;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Semaphore permits;
+
+    /**
+     * Allows {@link #DEFAULT_IN_FLIGHT_PER_CONNECTION} operations per connection of the service
+     * @param service the service to execute the operations on
+     */
+    public AsyncDBService(DBService service) {
+        this(service, DEFAULT_IN_FLIGHT_PER_CONNECTION * connectionCount(service));
+    }
+
+    /**
+     * @param service the service to execute the operations on
+     * @param maxInFlight the maximum amount of operations that run at the same time
+     */
+    public AsyncDBService(DBService service, int maxInFlight) {
+        this(service, maxInFlight, createExecutor(maxInFlight), true);
+    }
+
+    /**
+     * @param service the service to execute the operations on
+     * @param maxInFlight the maximum amount of operations that run at the same time
+     * @param executor the executor of the operations, it is not shut down by this service
+     */
+    public AsyncDBService(DBService service, int maxInFlight, ExecutorService executor) {
+        this(service, maxInFlight, executor, false);
+    }
+
+    private AsyncDBService(DBService service, int maxInFlight, ExecutorService executor, boolean ownsExecutor) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("Max in-flight operations should be at least 1");
+        this.service = service;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * @return the blocking service the operations are executed on
+     */
+    public DBService getService() {
+        return service;
+    }
+
+    public CompletableFuture<Void> insert(Record record) {
+        return run(() -> service.insert(record));
+    }
+
+    public CompletableFuture<Void> insert(Collection<? extends Record> records) {
+        return run(() -> service.insert(records));
+    }
+
+    public CompletableFuture<Void> update(Record record) {
+        return run(() -> service.update(record));
+    }
+
+    public CompletableFuture<Void> update(Collection<? extends Record> records) {
+        return run(() -> service.update(records));
+    }
+
+    public CompletableFuture<Void> upsert(Collection<? extends Record> records) {
+        return run(() -> service.upsert(records));
+    }
+
+    public CompletableFuture<Void> delete(Record record) {
+        return run(() -> service.delete(record));
+    }
+
+    public CompletableFuture<Void> delete(Collection<? extends Record> records) {
+        return run(() -> service.delete(records));
+    }
+
+    public CompletableFuture<Void> deleteByIds(Class<?> type, Collection<?> ids) {
+        return run(() -> service.deleteByIds(type, ids));
+    }
+
+    public <T> CompletableFuture<List<T>> getRecords(Class<T> type) {
+        return supply(() -> service.getRecords(type));
+    }
+
+    public CompletableFuture<Long> getRecordCount(Class<?> type) {
+        return supply(() -> service.getRecordCount(type));
+    }
+
+    public <T> CompletableFuture<Optional<T>> findById(Class<T> type, Object id) {
+        return supply(() -> service.findById(type, id));
+    }
+
+    public <T> CompletableFuture<List<T>> findAllByIds(Class<T> type, Collection<?> ids) {
+        return supply(() -> service.findAllByIds(type, ids));
+    }
+
+    /**
+     * @param query the query to execute, it should not be changed until the future completes
+     * @return the future of the matching records
+     */
+    public <T> CompletableFuture<List<T>> list(Query<T> query) {
+        return supply(query::list);
+    }
+
+    /**
+     * @param query the query to execute, it should not be changed until the future completes
+     * @return the future of the amount of matching records
+     */
+    public CompletableFuture<Long> count(Query<?> query) {
+        return supply(query::count);
+    }
+
+    /**
+     * Executes any other operation of the service
+     * @param operation the operation to execute
+     * @return the future of the result of the operation
+     */
+    public <R> CompletableFuture<R> execute(Function<DBService, R> operation) {
+        return supply(() -> operation.apply(service));
+    }
+
+    /**
+     * Shuts down the executor if it was created by this service, running operations are completed
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) executor.shutdown();
+    }
+
+    private CompletableFuture<Void> run(Runnable operation) {
+        return supply(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * The permit is acquired on the executing thread, so the caller never blocks.
+     * Virtual threads that wait for a permit do not occupy a carrier thread
+     */
+    private <R> CompletableFuture<R> supply(Supplier<R> operation) {
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                return operation.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    private static int connectionCount(DBService service) {
+        return service instanceof SQLiteService sqliteService ? sqliteService.getReaderCount() + 1 : 1;
+    }
+
+    /**
+     * Uses a virtual thread per operation on Java 21 and newer. The library targets Java 17,
+     * so the factory is looked up at runtime. Older runtimes use one platform thread per permit
+     */
+    private static ExecutorService createExecutor(int maxInFlight) {
+        try {
+            MethodHandle factory = MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            return (ExecutorService) factory.invokeExact();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            AtomicInteger threads = new AtomicInteger();
+            return Executors.newFixedThreadPool(maxInFlight, runnable -> {
+                Thread thread = new Thread(runnable, "radix-async-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create the executor of the asynchronous service", e);
+        }
+    }
+}
@@ -7,7 +7,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.logging.Level;
+import java.util.stream.Stream;
 
 /**
  * Is the template for all database service implementations
@@ -35,6 +38,17 @@ public interface DBService extends AutoCloseable {
      * @param level the level to set the class' log level
      */
     void setLogLevel(Level level);
+
+    /**
+     * @param batchSize the maximum amount of rows sent to the database in a single batch
+     */
+    void setBatchSize(int batchSize);
+
+    /**
+     * @param fetchSize the amount of rows the driver is hinted to fetch at once while streaming records, 0 for the driver default
+     */
+    void setFetchSize(int fetchSize);
+
     /**
      * @param predicate the predicate for automatically creating database tables
      */
@@ -58,6 +72,12 @@ public interface DBService extends AutoCloseable {
     **/
     boolean tableExists(Class<?> type);
 
+    /**
+     * @param type record type of the table
+     * @return the data-model of the table, or null if no table is registered for the type
+     */
+    Table getTable(Class<?> type);
+
     /**
      * @param type record type to check
      * @return true if the table is empty or failed to find a matching database table
@@ -92,6 +112,48 @@ public interface DBService extends AutoCloseable {
      */
     <T> List<T> getRecords(Class<T> type);
 
+    /**
+     * Lazily reads all records of a type, the cursor should be closed when it is not exhausted
+     * @param type record type to retrieve
+     * @return the cursor over the records of the type
+     * @throws IllegalStateException if the records could not be queried
+     */
+    <T> RecordCursor<T> cursor(Class<T> type);
+
+    /**
+     * Lazily reads all records of a type using constant memory, the stream should be closed when it is not fully consumed
+     * @param type record type to retrieve
+     * @return the stream of the records of the type
+     * @throws IllegalStateException if the records could not be queried
+     */
+    <T> Stream<T> stream(Class<T> type);
+
+    /**
+     * Reads a single record using its identifier
+     * @param type record type to retrieve
+     * @param id the identifier of the record
+     * @return the record, or empty if no record has the identifier
+     * @throws IllegalStateException if the table of the type is not registered or has no identifier
+     */
+    <T> Optional<T> findById(Class<T> type, Object id);
+
+    /**
+     * Reads the records with the given identifiers, identifiers without a record are skipped
+     * @param type record type to retrieve
+     * @param ids the identifiers of the records
+     * @return the records in no particular order
+     * @throws IllegalStateException if the table of the type is not registered or has no identifier
+     */
+    <T> List<T> findAllByIds(Class<T> type, Collection<?> ids);
+
+    /**
+     * Creates a typed query over the table of a type, the query is executed by the database
+     * @param type record type to query
+     * @return the query without any conditions
+     * @throws IllegalStateException if no table is registered for the type
+     */
+    <T> Query<T> query(Class<T> type);
+
     /**
      * Creates an interaction with the database, useful for single inserts.
      * The use of inserting multiple records with a Collection is highly recommended.
@@ -100,22 +162,70 @@ public interface DBService extends AutoCloseable {
     void insert(Record record);
 
     /**
-     * Is highly optimized due to there only being one interaction with the database for many records
+     * Is highly optimized due to the records being inserted in batches within a single transaction
      * @param records to insert into the database
      */
     void insert(Collection<? extends Record> records);
 
     /**
-     * Updates a record in the database using its identifier
+     * Updates a record in the database using its identifier, read-only fields are not overwritten
      * @param record to update
      */
     void update(Record record);
 
+    /**
+     * Inserts the record, or updates it if a record with the same identifier exists
+     * @param record to insert or update
+     */
+    void upsert(Record record);
+
+    /**
+     * Inserts the records, or updates those of which the identifier exists, in batches within a single transaction
+     * @param records to insert or update
+     */
+    void upsert(Collection<? extends Record> records);
+
+    /**
+     * Updates the records using their identifiers, in batches within a single transaction
+     * @param records to update
+     */
+    void update(Collection<? extends Record> records);
+
     /**
      * @param record record to delete
      */
     void delete(Record record);
 
+    /**
+     * Deletes the records using their identifiers, in batches within a single transaction
+     * @param records to delete
+     */
+    void delete(Collection<? extends Record> records);
+
+    /**
+     * Deletes the records with the given identifiers, in batches within a single transaction
+     * @param type record type to delete
+     * @param ids the identifiers of the records to delete
+     */
+    void deleteByIds(Class<?> type, Collection<?> ids);
+
+    /**
+     * Executes the action in a single transaction, all writes of the action are committed together.
+     * Other writes wait until the transaction is committed.
+     * A nested transaction uses a savepoint, so only its own writes are rolled back when it fails.
+     * Reads of the given service within the action see the writes of the transaction
+     * @param action the action that writes using the given service
+     * @throws RuntimeException the exception of the action, after rolling back its writes
+     */
+    void inTransaction(Consumer<DBService> action);
+
+    /**
+     * @return a new unit of work that writes its pending changes to this service
+     */
+    default UnitOfWork unitOfWork() {
+        return new UnitOfWork(this);
+    }
+
     /**
      * A raw method to execute sql statements
      *
@@ -0,0 +1,185 @@
+package tlb1.radix.database.services;
+
+import tlb1.radix.database.Column;
+import tlb1.radix.database.Operator;
+import tlb1.radix.database.SortOrder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * A typed query over a registered table, the conditions are compiled to a parameterized WHERE clause.
+ * Field names are resolved to their column names, so references can be filtered using the name of the field
+ */
+public class Query<T> {
+    private final SQLiteService service;
+    private final Class<T> type;
+    private final Table table;
+
+    private final List<String> conditions = new ArrayList<>();
+    private final List<Object> parameters = new ArrayList<>();
+    private final List<String> orders = new ArrayList<>();
+    private long limit = -1;
+    private long offset;
+
+    Query(SQLiteService service, Class<T> type, Table table) {
+        this.service = service;
+        this.type = type;
+        this.table = table;
+    }
+
+    /**
+     * Adds a condition, all conditions have to match
+     * @param field the name of the record field
+     * @param operator the comparison of the column with the value
+     * @param value the value to compare with, a collection for {@link Operator#IN}
+     * @return this query
+     * @throws IllegalArgumentException if the field is not a column of the table
+     */
+    public Query<T> where(String field, Operator operator, Object value) {
+        String column = resolve(field);
+        if (operator.isUnary()) {
+            conditions.add("%s %s".formatted(column, operator));
+            return this;
+        }
+        if (operator != Operator.IN) {
+            conditions.add("%s %s ?".formatted(column, operator));
+            parameters.add(value);
+            return this;
+        }
+
+        if (!(value instanceof Collection<?> values)) throw new IllegalArgumentException("IN requires a collection of values");
+        if (values.isEmpty()) {
+            conditions.add("0");
+            return this;
+        }
+        conditions.add("%s IN (%s)".formatted(column, String.join(", ", Collections.nCopies(values.size(), "?"))));
+        parameters.addAll(values);
+        return this;
+    }
+
+    /**
+     * Adds a condition without a value, like {@link Operator#IS_NULL}
+     * @return this query
+     */
+    public Query<T> where(String field, Operator operator) {
+        if (!operator.isUnary()) throw new IllegalArgumentException("Operator %s requires a value".formatted(operator.name()));
+        return where(field, operator, null);
+    }
+
+    /**
+     * @param field the name of the record field to sort on, in ascending order
+     * @return this query
+     */
+    public Query<T> orderBy(String field) {
+        return orderBy(field, SortOrder.ASC);
+    }
+
+    /**
+     * @param field the name of the record field to sort on, multiple calls add secondary sort orders
+     * @return this query
+     */
+    public Query<T> orderBy(String field, SortOrder order) {
+        orders.add("%s %s".formatted(resolve(field), order.name()));
+        return this;
+    }
+
+    /**
+     * @param limit the maximum amount of records
+     * @return this query
+     */
+    public Query<T> limit(long limit) {
+        if (limit < 0) throw new IllegalArgumentException("Limit cannot be negative");
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @param offset the amount of records to skip
+     * @return this query
+     */
+    public Query<T> offset(long offset) {
+        if (offset < 0) throw new IllegalArgumentException("Offset cannot be negative");
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @return all matching records
+     * @throws IllegalStateException if the query could not be executed
+     */
+    public List<T> list() {
+        return service.queryRecords(table, type, toSql(table.selectTableQuery(), true), queryParameters());
+    }
+
+    /**
+     * Lazily reads the matching records, the stream should be closed when it is not fully consumed
+     * @return the stream of the matching records
+     * @throws IllegalStateException if the query could not be executed
+     */
+    public Stream<T> stream() {
+        return service.queryCursor(table, type, toSql(table.selectTableQuery(), true), queryParameters()).stream();
+    }
+
+    /**
+     * @return the first matching record
+     */
+    public Optional<T> first() {
+        long previousLimit = limit;
+        limit = 1;
+        try {
+            return list().stream().findFirst();
+        } finally {
+            limit = previousLimit;
+        }
+    }
+
+    /**
+     * @return the amount of matching records, limit and offset are ignored
+     */
+    public long count() {
+        return service.queryCount(toSql("SELECT COUNT(*) FROM " + table.getName(), false), parameters);
+    }
+
+    /**
+     * @return the parameterized sql of this query
+     */
+    public String getQuery() {
+        return toSql(table.selectTableQuery(), true);
+    }
+
+    /**
+     * @return the parameters in the order of the parameterized sql
+     */
+    public List<Object> getParameters() {
+        return List.copyOf(queryParameters());
+    }
+
+    private String toSql(String select, boolean paged) {
+        StringBuilder query = new StringBuilder(select);
+        if (!conditions.isEmpty()) query.append(" WHERE ").append(String.join(" AND ", conditions));
+        if (!paged) return query.toString();
+        if (!orders.isEmpty()) query.append(" ORDER BY ").append(String.join(", ", orders));
+        if (limit >= 0 || offset > 0) query.append(" LIMIT ? OFFSET ?");
+        return query.toString();
+    }
+
+    private List<Object> queryParameters() {
+        if (limit < 0 && offset == 0) return parameters;
+        List<Object> queryParameters = new ArrayList<>(parameters);
+        queryParameters.add(limit);
+        queryParameters.add(offset);
+        return queryParameters;
+    }
+
+    private String resolve(String field) {
+        for (Column column : table.getColumns()) {
+            if (column.getField().getName().equals(field) || column.getName().equals(field)) return column.getName();
+        }
+        throw new IllegalArgumentException("Field %s is not a column of table %s".formatted(field, table.getName()));
+    }
+}
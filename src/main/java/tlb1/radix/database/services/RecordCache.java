@@ -1,48 +1,432 @@
 package tlb1.radix.database.services;
 
+import tlb1.radix.database.ColumnAccessor;
 import tlb1.radix.database.annotations.Identifier;
 import tlb1.radix.database.records.Record;
+import tlb1.radix.util.IntObjectMap;
+import tlb1.radix.util.LongObjectMap;
 
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
+/**
+ * Caches records using their identifiers.
+ * A bounded cache evicts the least recently used records once its maximum weight is exceeded,
+ * records can also expire a fixed duration after they were written.
+ * Misses are loaded using the loader of the cache, if there is one.
+ * Unbounded caches of records with an int or long identifier store the identifiers without boxing them.
+ * The cache is safe to use from multiple threads
+ */
 public class RecordCache<T extends Record> {
-    private final Map<Object, T> cache;
-    private final Field identifier;
+    private static final ToLongFunction<Object> UNIT_WEIGHER = record -> 1;
 
+    private final ColumnAccessor identifier;
+    private final Class<?> keyType;
+    private final long maximumWeight;
+    private final ToLongFunction<? super T> weigher;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /*
+     * Exactly one of the maps is used, the values are either the record itself,
+     * or an Entry when the record has a weight other than 1 or expires
+     */
+    private final LinkedHashMap<Object, Object> cache;
+    private final IntObjectMap<Object> intCache;
+    private final LongObjectMap<Object> longCache;
+
+    private long weight;
+    private long expireAfterWriteNanos;
+    private long invalidations;
+    private volatile Function<Object, Optional<T>> loader;
+
+    /**
+     * Creates an unbounded cache that contains the records
+     * @param records the records to cache, all of the same type
+     * @throws IllegalStateException if the collection is empty or the type has no identifier
+     */
+    @SuppressWarnings("unchecked")
     public RecordCache(Collection<T> records) {
-        cache = new HashMap<>();
-        identifier = Arrays.stream(records.stream().findFirst()
-                        .orElseThrow(() -> new IllegalStateException("Collection is empty"))
+        this((Class<T>) records.stream().findFirst()
+                .orElseThrow(() -> new IllegalStateException("Collection is empty")).getClass());
+        records.forEach(this::put);
+    }
+
+    /**
+     * Creates an unbounded cache
+     * @param type the record type of the cache
+     * @throws IllegalStateException if the type has no identifier
+     */
+    public RecordCache(Class<T> type) {
+        this(type, Long.MAX_VALUE, UNIT_WEIGHER);
+    }
 
-                        .getClass().getFields()).filter((field -> field.isAnnotationPresent(Identifier.class))).findFirst()
+    /**
+     * Creates a cache that evicts the least recently used record once it contains more than the maximum size
+     * @param type the record type of the cache
+     * @param maximumSize the maximum amount of records
+     * @throws IllegalStateException if the type has no identifier
+     */
+    public RecordCache(Class<T> type, long maximumSize) {
+        this(type, maximumSize, UNIT_WEIGHER);
+    }
+
+    /**
+     * Creates a cache that evicts the least recently used records once the total weight exceeds the maximum weight
+     * @param type the record type of the cache
+     * @param maximumWeight the maximum total weight of the records
+     * @param weigher computes the weight of a record, the weight should not be negative
+     * @throws IllegalStateException if the type has no identifier
+     */
+    public RecordCache(Class<T> type, long maximumWeight, ToLongFunction<? super T> weigher) {
+        if (maximumWeight < 0) throw new IllegalArgumentException("Maximum weight should not be negative");
+        Field field = Arrays.stream(type.getFields())
+                .filter(f -> f.isAnnotationPresent(Identifier.class)).findFirst()
                 .orElseThrow(() -> new IllegalStateException("Record type does not have a valid identifier"));
+        this.identifier = ColumnAccessor.of(field);
+        this.keyType = MethodType.methodType(field.getType()).wrap().returnType();
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
 
-        records.forEach(this::tryPut);
+        // The primitive maps have no access order, so they are only used by unbounded caches
+        boolean bounded = isBounded();
+        cache = bounded || !isPrimitiveKey(field.getType()) ? new LinkedHashMap<>(16, 0.75f, bounded) : null;
+        intCache = cache == null && field.getType() == int.class ? new IntObjectMap<>() : null;
+        longCache = cache == null && field.getType() == long.class ? new LongObjectMap<>() : null;
     }
 
-    private void tryPut(T record) {
-        if (record == null) return;
+    /**
+     * @param duration the time after which a written record expires, null or zero to never expire records
+     */
+    public void setExpireAfterWrite(Duration duration) {
+        lock.lock();
         try {
-            cache.put(identifier.get(record), record);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
+            expireAfterWriteNanos = duration == null ? 0 : duration.toNanos();
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * @param loader loads the record of an identifier on a miss, null to disable loading
+     */
+    public void setLoader(Function<Object, Optional<T>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @param id the identifier of the record
+     * @return the cached record, or the loaded record on a miss. null if there is no such record
+     */
     public T get(Object id) {
-        return cache.get(id);
+        id = key(id);
+        Function<Object, Optional<T>> loader = this.loader;
+        long loadedAfter;
+        lock.lock();
+        try {
+            T record = getIfPresent(id);
+            if (record != null || loader == null || id == null) return record;
+            loadedAfter = invalidations;
+        } finally {
+            lock.unlock();
+        }
+        return load(id, loader, loadedAfter);
+    }
+
+    /**
+     * Looks up the record of an integral identifier without boxing the identifier, unless it has to be loaded
+     * @param id the identifier of the record
+     * @return the cached record, or the loaded record on a miss. null if there is no such record
+     */
+    public T get(long id) {
+        if (cache != null) return get(key(id));
+        Function<Object, Optional<T>> loader = this.loader;
+        long loadedAfter;
+        lock.lock();
+        try {
+            T record = getIfPresent(id);
+            if (record != null || loader == null) return record;
+            loadedAfter = invalidations;
+        } finally {
+            lock.unlock();
+        }
+        return load(intCache != null && id == (int) id ? (Object) (int) id : (Object) id, loader, loadedAfter);
+    }
+
+    /**
+     * @param id the identifier of the record
+     * @return the cached record, null on a miss
+     */
+    public T getIfPresent(Object id) {
+        if (id == null) return null;
+        if (cache == null) return isIntegral(id) ? getIfPresent(((Number) id).longValue()) : null;
+        Object key = key(id);
+        lock.lock();
+        try {
+            Object value = cache.get(key);
+            if (value == null) return null;
+            if (isExpired(value, System.nanoTime())) {
+                weight -= weightOf(cache.remove(key));
+                return null;
+            }
+            return recordOf(value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Looks up the record of an integral identifier without boxing the identifier
+     * @param id the identifier of the record
+     * @return the cached record, null on a miss
+     */
+    public T getIfPresent(long id) {
+        if (cache != null) return getIfPresent(key(id));
+        lock.lock();
+        try {
+            Object value = lookup(id);
+            if (value == null) return null;
+            if (isExpired(value, System.nanoTime())) {
+                weight -= weightOf(remove(id));
+                return null;
+            }
+            return recordOf(value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches the record using its identifier, replacing the record with the same identifier
+     * @param record the record to cache
+     */
+    public void put(T record) {
+        if (record == null) return;
+        if (cache == null) {
+            long id = identifier.getLong(record);
+            lock.lock();
+            try {
+                invalidations++;
+                store(id, record);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        Object id = identifier.get(record);
+        if (id == null) return;
+        lock.lock();
+        try {
+            invalidations++;
+            store(id, record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the cached record with the same identifier, nothing happens if it is not cached
+     * @param record the new record
+     */
+    public void replace(T record) {
+        if (record == null) return;
+        if (cache == null) {
+            long id = identifier.getLong(record);
+            lock.lock();
+            try {
+                invalidations++;
+                if (lookup(id) != null) store(id, record);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        Object id = identifier.get(record);
+        if (id == null) return;
+        lock.lock();
+        try {
+            invalidations++;
+            if (cache.containsKey(id)) store(id, record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the record of the identifier from the cache
+     * @param id the identifier of the record
+     */
+    public void invalidate(Object id) {
+        if (id == null) return;
+        lock.lock();
+        try {
+            invalidations++;
+            if (cache != null) weight -= weightOf(cache.remove(key(id)));
+            else if (isIntegral(id)) weight -= weightOf(remove(((Number) id).longValue()));
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * @return the amount of cached records, including expired records that were not removed yet
+     */
     public int size() {
-        return cache.size();
+        lock.lock();
+        try {
+            if (cache != null) return cache.size();
+            return intCache != null ? intCache.size() : longCache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the total weight of the cached records
+     */
+    public long weight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * Removes all records from the cache
+     */
     public void clear() {
-        cache.clear();
+        lock.lock();
+        try {
+            invalidations++;
+            if (cache != null) cache.clear();
+            else if (intCache != null) intCache.clear();
+            else longCache.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private T load(Object id, Function<Object, Optional<T>> loader, long loadedAfter) {
+        T record = loader.apply(id).orElse(null);
+        if (record == null) return null;
+        lock.lock();
+        try {
+            // A record that was written or deleted during the load may be outdated
+            // The record is stored under its own identifier, the requested id may be of another boxed type
+            if (loadedAfter == invalidations) {
+                if (cache == null) store(identifier.getLong(record), record);
+                else if (identifier.get(record) != null) store(identifier.get(record), record);
+            }
+            return record;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the id as the boxed type of the identifier, integral ids of other types would never match a key
+     */
+    private Object key(Object id) {
+        if (!isIntegral(id) || id.getClass() == keyType) return id;
+        Object key = key(((Number) id).longValue());
+        return key.getClass() == keyType ? key : id;
+    }
+
+    /**
+     * @return the id boxed as the type of the identifier, or as a Long if it does not fit that type
+     */
+    private Object key(long id) {
+        if (keyType == Integer.class && id == (int) id) return (int) id;
+        if (keyType == Short.class && id == (short) id) return (short) id;
+        if (keyType == Byte.class && id == (byte) id) return (byte) id;
+        return id;
+    }
+
+    private boolean isBounded() {
+        return maximumWeight != Long.MAX_VALUE;
+    }
+
+    private void store(Object id, T record) {
+        Object value = entryOf(record);
+        weight += weightOf(value) - weightOf(cache.put(id, value));
+        if (isBounded()) evict();
+    }
+
+    private void store(long id, T record) {
+        Object value = entryOf(record);
+        Object previous = intCache != null ? intCache.put((int) id, value) : longCache.put(id, value);
+        weight += weightOf(value) - weightOf(previous);
     }
 
+    private Object lookup(long id) {
+        if (intCache == null) return longCache.get(id);
+        return id == (int) id ? intCache.get((int) id) : null;
+    }
+
+    private Object remove(long id) {
+        if (intCache == null) return longCache.remove(id);
+        return id == (int) id ? intCache.remove((int) id) : null;
+    }
+
+    /**
+     * Removes the least recently used records until the total weight does not exceed the maximum weight
+     */
+    private void evict() {
+        Iterator<Map.Entry<Object, Object>> iterator = cache.entrySet().iterator();
+        while (weight > maximumWeight && iterator.hasNext()) {
+            weight -= weightOf(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return the record itself, unless its weight or expiry has to be stored as well
+     */
+    private Object entryOf(T record) {
+        long recordWeight = weigher == UNIT_WEIGHER ? 1 : weigher.applyAsLong(record);
+        if (recordWeight < 0) throw new IllegalArgumentException("Record weight should not be negative");
+        if (recordWeight == 1 && expireAfterWriteNanos == 0) return record;
+        long expiresAt = expireAfterWriteNanos == 0 ? 0 : System.nanoTime() + expireAfterWriteNanos;
+        return new Entry(record, recordWeight, expiresAt);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T recordOf(Object value) {
+        return (T) (value instanceof Entry entry ? entry.record : value);
+    }
+
+    private static long weightOf(Object value) {
+        if (value == null) return 0;
+        return value instanceof Entry entry ? entry.weight : 1;
+    }
+
+    private static boolean isExpired(Object value, long now) {
+        return value instanceof Entry entry && entry.expiresAt != 0 && now - entry.expiresAt >= 0;
+    }
+
+    private static boolean isPrimitiveKey(Class<?> type) {
+        return type == int.class || type == long.class;
+    }
+
+    private static boolean isIntegral(Object id) {
+        return id instanceof Integer || id instanceof Long || id instanceof Short || id instanceof Byte;
+    }
+
+    private record Entry(Object record, long weight, long expiresAt) {
+
+    }
 }
@@ -0,0 +1,101 @@
+package tlb1.radix.database.services;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily maps the rows of a query result to records, only the current row is held in memory.
+ * The underlying statement is closed when the cursor is exhausted or closed
+ */
+public class RecordCursor<T> implements Iterator<T>, AutoCloseable {
+    private final Statement statement;
+    private final ResultSet dataSet;
+    private final RowMapper<T> rowMapper;
+    private final Runnable onClose;
+
+    private boolean fetched;
+    private boolean hasNext;
+    private boolean closed;
+
+    /**
+     * @param statement the statement that owns the result, it is closed together with the cursor
+     * @param dataSet the result to read
+     * @param mapper the field plan of the record type
+     * @throws SQLException if the metadata of the result cannot be read
+     */
+    public RecordCursor(Statement statement, ResultSet dataSet, RecordMapper<T> mapper) throws SQLException {
+        this(statement, dataSet, mapper, () -> { });
+    }
+
+    /**
+     * @param statement the statement that owns the result, it is closed together with the cursor
+     * @param dataSet the result to read
+     * @param mapper the field plan of the record type
+     * @param onClose runs once after the statement is closed, for example to release the lock of the connection
+     * @throws SQLException if the metadata of the result cannot be read
+     */
+    public RecordCursor(Statement statement, ResultSet dataSet, RecordMapper<T> mapper, Runnable onClose) throws SQLException {
+        this.statement = statement;
+        this.dataSet = dataSet;
+        this.onClose = onClose;
+        this.rowMapper = mapper.bind(dataSet.getMetaData());
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) return false;
+        if (fetched) return hasNext;
+        try {
+            hasNext = dataSet.next();
+            fetched = true;
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException("Could not read the next row", e);
+        }
+        if (!hasNext) close();
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        fetched = false;
+        try {
+            return rowMapper.map(dataSet);
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException("Could not map the current row", e);
+        }
+    }
+
+    /**
+     * @return a sequential stream of the remaining records, closing the stream closes the cursor
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * Closes the underlying statement, can be called multiple times
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+
+        } finally {
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package tlb1.radix.database.services;
+
+import tlb1.radix.database.Column;
+import tlb1.radix.database.ColumnAccessor;
+import tlb1.radix.database.TypeCodec;
+import tlb1.radix.database.annotations.Identifier;
+import tlb1.radix.database.annotations.Reference;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * The field plan of a record type, it is computed once per table and reused for every query.
+ * Binding it to the metadata of a query resolves the column indexes of that query
+ */
+public class RecordMapper<T> {
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final List<Column> columns;
+    private final ColumnSetter[] setters;
+    private final List<Column> references = new ArrayList<>();
+    private final List<ColumnAccessor> referenceFields = new ArrayList<>();
+
+    /**
+     * @param type the record type to create
+     * @param columns the columns of the table of the record type
+     * @throws IllegalArgumentException if the type has no public no-args constructor or a column type is unsupported
+     */
+    public RecordMapper(Class<T> type, List<Column> columns) {
+        this.type = type;
+        try {
+            constructor = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Record type %s requires a public constructor without arguments".formatted(type.getName()));
+        }
+        this.columns = columns.stream()
+                .filter(column -> !column.getField().isAnnotationPresent(Reference.class)).toList();
+        setters = new ColumnSetter[this.columns.size()];
+        for (int i = 0; i < setters.length; i++) {
+            setters[i] = createSetter(this.columns.get(i));
+        }
+
+        for (Column column : columns) {
+            if (!column.getField().isAnnotationPresent(Reference.class)) continue;
+            boolean identified = Arrays.stream(column.getField().getType().getFields())
+                    .anyMatch(field -> field.isAnnotationPresent(Identifier.class));
+            if (!identified || column.getCodec() == null) continue;
+            references.add(column);
+            referenceFields.add(ColumnAccessor.of(column.getField()));
+        }
+    }
+
+    private static ColumnSetter createSetter(Column column) {
+        ColumnAccessor accessor = column.getAccessor();
+        TypeCodec<?> codec = column.getCodec();
+        if (codec == null) throw new IllegalArgumentException("Cannot read fields of type " + column.getField().getType().getName());
+        return switch (column.getKind()) {
+            case LONG -> (record, dataSet, index) -> accessor.setLong(record, codec.readLong(dataSet, index));
+            case DOUBLE -> (record, dataSet, index) -> accessor.setDouble(record, codec.readDouble(dataSet, index));
+            default -> column.getField().getType().isPrimitive() ? createPrimitiveSetter(accessor, codec, column.getField().getType())
+                    : (record, dataSet, index) -> accessor.set(record, codec.read(dataSet, index));
+        };
+    }
+
+    /**
+     * Primitive fields that are not integral or floating point, like char, cannot hold null.
+     * A null value sets the default value of the primitive, the same way NULL is read as 0 for numeric fields
+     */
+    private static ColumnSetter createPrimitiveSetter(ColumnAccessor accessor, TypeCodec<?> codec, Class<?> type) {
+        Object defaultValue = Array.get(Array.newInstance(type, 1), 0);
+        return (record, dataSet, index) -> {
+            Object value = codec.read(dataSet, index);
+            accessor.set(record, value == null ? defaultValue : value);
+        };
+    }
+
+    /**
+     * @return a new empty record
+     */
+    public T newRecord() {
+        try {
+            return type.cast((Object) constructor.invokeExact());
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create a record of type " + type.getName());
+        }
+    }
+
+    /**
+     * Resolves the index of every column in the result once
+     * @param metaData the metadata of the query result
+     * @return the row mapper for the rows of the query result
+     * @throws SQLException if the metadata cannot be read
+     */
+    public RowMapper<T> bind(ResultSetMetaData metaData) throws SQLException {
+        Map<String, Integer> labels = new HashMap<>();
+        for (int i = metaData.getColumnCount(); i > 0; i--) {
+            labels.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        int[] indexes = new int[setters.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = labels.getOrDefault(columns.get(i).getName().toLowerCase(Locale.ROOT), 0);
+        }
+        int[] referenceIndexes = new int[references.size()];
+        for (int i = 0; i < referenceIndexes.length; i++) {
+            referenceIndexes[i] = labels.getOrDefault(references.get(i).getName().toLowerCase(Locale.ROOT), 0);
+        }
+        return new RowMapper<>(this, setters, indexes, referenceIndexes);
+    }
+
+    /**
+     * @return true if the record type refers to other record types that have an identifier
+     */
+    public boolean hasReferences() {
+        return !references.isEmpty();
+    }
+
+    /**
+     * Reads the identifier of a referred record and passes it to the resolver
+     * @param reference the index of the reference column
+     */
+    void readReference(int reference, Object record, ResultSet dataSet, int index, ReferenceResolver resolver) throws SQLException {
+        Object id = references.get(reference).getCodec().read(dataSet, index);
+        if (id != null) resolver.add(record, referenceFields.get(reference), id);
+    }
+
+    /**
+     * Reads a single value of the current row and writes it to the record
+     */
+    @FunctionalInterface
+    interface ColumnSetter {
+        void set(Object record, ResultSet dataSet, int index) throws SQLException;
+    }
+}
@@ -0,0 +1,70 @@
+package tlb1.radix.database.services;
+
+import tlb1.radix.database.ColumnAccessor;
+
+import java.util.*;
+
+/**
+ * Resolves the references of the records of a single read.
+ * The identifiers of the referred records are collected while the rows are mapped,
+ * every referred type is then loaded using one lookup by identifiers instead of a query per row.
+ * The identity map makes sure every row is mapped to one instance, which also ends cyclic references
+ */
+class ReferenceResolver {
+    private final SQLiteService service;
+    private final Map<Class<?>, Map<Object, Object>> identities = new HashMap<>();
+    private final Map<Class<?>, Set<Object>> pending = new LinkedHashMap<>();
+    private final List<Assignment> assignments = new ArrayList<>();
+
+    ReferenceResolver(SQLiteService service) {
+        this.service = service;
+    }
+
+    /**
+     * Adds a mapped record to the identity map
+     */
+    void register(Class<?> type, Object id, Object record) {
+        if (id != null) identities(type).putIfAbsent(id, record);
+    }
+
+    /**
+     * Schedules the reference field of the record to be set to the record with the identifier
+     * @param field the accessor of the reference field
+     */
+    void add(Object record, ColumnAccessor field, Object id) {
+        Class<?> type = field.getField().getType();
+        assignments.add(new Assignment(record, field, id));
+        if (!identities(type).containsKey(id)) pending.computeIfAbsent(type, key -> new LinkedHashSet<>()).add(id);
+    }
+
+    /**
+     * Loads the referred records, including the records they refer to, and sets the reference fields.
+     * References to records that do not exist, or of which the type has no table, stay null
+     */
+    void resolve() {
+        while (!pending.isEmpty()) {
+            Iterator<Map.Entry<Class<?>, Set<Object>>> iterator = pending.entrySet().iterator();
+            Map.Entry<Class<?>, Set<Object>> next = iterator.next();
+            iterator.remove();
+
+            Map<Object, Object> identities = identities(next.getKey());
+            List<Object> ids = new ArrayList<>(next.getValue());
+            ids.removeIf(identities::containsKey);
+            if (!ids.isEmpty()) service.loadReferences(next.getKey(), ids, this);
+        }
+
+        for (Assignment assignment : assignments) {
+            Object referred = identities(assignment.field.getField().getType()).get(assignment.id);
+            assignment.field.set(assignment.record, referred);
+        }
+        assignments.clear();
+    }
+
+    private Map<Object, Object> identities(Class<?> type) {
+        return identities.computeIfAbsent(type, key -> new HashMap<>());
+    }
+
+    private record Assignment(Object record, ColumnAccessor field, Object id) {
+
+    }
+}
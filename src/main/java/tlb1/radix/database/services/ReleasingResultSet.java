@@ -0,0 +1,52 @@
+package tlb1.radix.database.services;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps a raw result so an action runs once the result or its statement is closed,
+ * used to hold the lock of a shared connection for as long as the caller reads the result
+ */
+final class ReleasingResultSet {
+
+    private ReleasingResultSet() {
+
+    }
+
+    /**
+     * @param statement the statement that owns the result
+     * @param result the result to wrap
+     * @param release runs once, when either the result or the statement is closed
+     * @return the result of which {@link ResultSet#getStatement()} returns the wrapped statement
+     */
+    static ResultSet wrap(Statement statement, ResultSet result, Runnable release) {
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable releaseOnce = () -> {
+            if (released.compareAndSet(false, true)) release.run();
+        };
+        Statement releasingStatement = proxy(Statement.class, statement, releaseOnce, null);
+        return proxy(ResultSet.class, result, releaseOnce, releasingStatement);
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Runnable release, Statement statement) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (instance, method, arguments) -> {
+            if (statement != null && method.getName().equals("getStatement") && method.getParameterCount() == 0) return statement;
+            try {
+                return method.invoke(target, arguments);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (isClose(method)) release.run();
+            }
+        });
+        return type.cast(proxy);
+    }
+
+    private static boolean isClose(Method method) {
+        return method.getName().equals("close") && method.getParameterCount() == 0;
+    }
+}
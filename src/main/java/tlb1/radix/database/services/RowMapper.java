@@ -0,0 +1,51 @@
+package tlb1.radix.database.services;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the rows of a single query result to records, the column indexes are resolved in advance
+ */
+public class RowMapper<T> {
+    private final RecordMapper<T> mapper;
+    private final RecordMapper.ColumnSetter[] setters;
+    private final int[] indexes;
+    private final int[] referenceIndexes;
+
+    RowMapper(RecordMapper<T> mapper, RecordMapper.ColumnSetter[] setters, int[] indexes, int[] referenceIndexes) {
+        this.mapper = mapper;
+        this.setters = setters;
+        this.indexes = indexes;
+        this.referenceIndexes = referenceIndexes;
+    }
+
+    /**
+     * @param dataSet the result positioned on the row to map
+     * @return the record of the current row
+     * @throws SQLException if a value cannot be read
+     */
+    public T map(ResultSet dataSet) throws SQLException {
+        T record = mapper.newRecord();
+        for (int i = 0; i < setters.length; i++) {
+            if (indexes[i] == 0) continue;
+            setters[i].set(record, dataSet, indexes[i]);
+        }
+        return record;
+    }
+
+    /**
+     * Maps the current row and passes the identifiers of the referred records to the resolver
+     * @param dataSet the result positioned on the row to map
+     * @param resolver resolves the references once all rows are mapped
+     * @return the record of the current row, without its references
+     * @throws SQLException if a value cannot be read
+     */
+    T map(ResultSet dataSet, ReferenceResolver resolver) throws SQLException {
+        T record = map(dataSet);
+        for (int i = 0; i < referenceIndexes.length; i++) {
+            if (referenceIndexes[i] == 0) continue;
+            mapper.readReference(i, record, dataSet, referenceIndexes[i], resolver);
+        }
+        return record;
+    }
+}
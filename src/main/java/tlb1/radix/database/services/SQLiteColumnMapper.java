@@ -1,8 +1,11 @@
 package tlb1.radix.database.services;
 
 import tlb1.radix.database.Column;
+import tlb1.radix.database.ColumnAccessor;
 import tlb1.radix.database.FieldType;
 import tlb1.radix.database.FieldUsePredicate;
+import tlb1.radix.database.TypeCodec;
+import tlb1.radix.database.TypeCodecs;
 import tlb1.radix.database.annotations.DBField;
 import tlb1.radix.database.annotations.Identifier;
 import tlb1.radix.database.annotations.Reference;
@@ -10,31 +13,45 @@ import tlb1.radix.database.annotations.Reference;
 import java.lang.reflect.Field;
 import java.util.*;
 
+/**
+ * Maps the fields of a record type to columns, the types of the columns are taken from the codecs of the service
+ */
 public class SQLiteColumnMapper {
-    private final Map<Class<?>, FieldType> conversion;
+    private final TypeCodecs codecs;
 
-    public SQLiteColumnMapper(){
-        conversion = new HashMap<>();
-        
-        conversion.put(Long.class, FieldType.LONG);
-        conversion.put(Integer.class, FieldType.INTEGER);
-        conversion.put(Short.class, FieldType.SHORT);
-
-        conversion.put(Float.class, FieldType.FLOAT);
-        conversion.put(Double.class, FieldType.DOUBLE);
-
-        conversion.put(Boolean.class, FieldType.BOOLEAN);
-        conversion.put(Byte.class, FieldType.BYTE);
+    public SQLiteColumnMapper() {
+        this(new TypeCodecs());
+    }
 
-        conversion.put(String.class, FieldType.TEXT);
-        conversion.put(UUID.class, FieldType.UUID);
+    /**
+     * @param codecs the codecs of the service
+     */
+    public SQLiteColumnMapper(TypeCodecs codecs) {
+        this.codecs = codecs;
     }
 
     public Optional<Column> get(Field field, FieldUsePredicate predicate) {
         if (!predicate.shouldUse(field)) return Optional.empty();
         FieldType type = getType(field);
         String name = getName(field);
-        return Optional.of(new Column(type, name, field));
+        return Optional.of(new Column(type, name, field, getAccessor(field), getCodec(field)));
+    }
+
+    /**
+     * @return the codec of the field values, references use the codec of the identifier of the referred record
+     */
+    public TypeCodec<?> getCodec(Field field) {
+        if (!field.isAnnotationPresent(Reference.class)) return codecs.get(field.getType());
+        return getIdentifier(field.getType()).map(identifier -> codecs.get(identifier.getType())).orElse(null);
+    }
+
+    /**
+     * @return the precompiled accessor, references are read as the identifier of the referred record
+     */
+    public ColumnAccessor getAccessor(Field field) {
+        if (!field.isAnnotationPresent(Reference.class)) return ColumnAccessor.of(field);
+        Optional<Field> identifier = getIdentifier(field.getType());
+        return identifier.map(key -> ColumnAccessor.reference(field, key)).orElseGet(() -> ColumnAccessor.of(field));
     }
 
     public FieldType getType(Field field) {
@@ -48,7 +65,8 @@ public class SQLiteColumnMapper {
 
     public FieldType getDefaultType(Field field) {
         if (field.isAnnotationPresent(DBField.class)) return field.getAnnotation(DBField.class).value();
-        return conversion.get(field.getType());
+        TypeCodec<?> codec = codecs.get(field.getType());
+        return codec == null ? null : codec.getFieldType();
     }
 
     public Optional<Field> getIdentifier(Class<?> type) {
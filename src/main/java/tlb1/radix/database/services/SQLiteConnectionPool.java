@@ -0,0 +1,154 @@
+package tlb1.radix.database.services;
+
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the connections of a single SQLite database, one writer connection and any amount of read-only connections.
+ * When reader connections are used the database is opened in WAL journal mode,
+ * so reads can run concurrently with each other and with the writer
+ */
+public class SQLiteConnectionPool implements AutoCloseable {
+    private final Connection writer;
+    private final Connection[] readers;
+    private final SQLiteStatementCache writerStatements;
+    private final SQLiteStatementCache[] readerStatements;
+    private final AtomicInteger nextReader = new AtomicInteger();
+
+    /**
+     * @param url the database url including the driver
+     * @param readerCount the amount of read-only connections, 0 to read using the writer connection
+     * @throws SQLException if a connection cannot be opened
+     */
+    public SQLiteConnectionPool(String url, int readerCount) throws SQLException {
+        this(url, readerCount, new ReentrantLock(), null);
+    }
+
+    /**
+     * @param writeLock the lock that guards the writer connection
+     * @param profile the profile the connections are opened with, null for the driver defaults
+     */
+    SQLiteConnectionPool(String url, int readerCount, ReentrantLock writeLock, SQLiteProfile profile) throws SQLException {
+        if (readerCount < 0) throw new IllegalArgumentException("Reader count cannot be negative");
+        readers = new Connection[readerCount];
+        readerStatements = new SQLiteStatementCache[readerCount];
+        if (readerCount == 0 && profile == null) {
+            writer = DriverManager.getConnection(url);
+            writerStatements = new SQLiteStatementCache(writer, writeLock);
+            return;
+        }
+
+        SQLiteConfig writerConfig = profile == null ? new SQLiteConfig() : profile.toConfig(false);
+        writerConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        writer = DriverManager.getConnection(url, writerConfig.toProperties());
+        writerStatements = new SQLiteStatementCache(writer, writeLock);
+        if (profile != null && profile.isQueryOnly()) writerStatements.execute("PRAGMA query_only = true");
+
+        SQLiteConfig readerConfig = profile == null ? new SQLiteConfig() : profile.toConfig(true);
+        readerConfig.setReadOnly(true);
+        try {
+            for (int i = 0; i < readerCount; i++) {
+                readers[i] = DriverManager.getConnection(url, readerConfig.toProperties());
+                readerStatements[i] = new SQLiteStatementCache(readers[i], new ReentrantLock());
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the connection used for all writes
+     */
+    public Connection writer() {
+        return writer;
+    }
+
+    /**
+     * The readers are handed out round-robin and can be shared between threads,
+     * the driver serializes the calls on a single connection
+     * @return a read-only connection, or the writer if the pool has no readers
+     */
+    public Connection reader() {
+        if (readers.length == 0) return writer;
+        return readers[Math.floorMod(nextReader.getAndIncrement(), readers.length)];
+    }
+
+    /**
+     * @return the statement cache of the writer connection, it is guarded by the write lock
+     */
+    SQLiteStatementCache writerStatements() {
+        return writerStatements;
+    }
+
+    /**
+     * @return the statement cache of a reader connection, or of the writer if the pool has no readers
+     */
+    SQLiteStatementCache readerStatements() {
+        if (readers.length == 0) return writerStatements;
+        return readerStatements[Math.floorMod(nextReader.getAndIncrement(), readers.length)];
+    }
+
+    /**
+     * @param index the index of the reader connection
+     * @return the statement cache of the reader connection
+     */
+    SQLiteStatementCache readerStatements(int index) {
+        return readerStatements[index];
+    }
+
+    /**
+     * Applies the profile to the open connections, every connection is locked while the profile is applied
+     * @param profile the profile to switch to
+     * @throws SQLException if a PRAGMA could not be applied
+     */
+    void apply(SQLiteProfile profile) throws SQLException {
+        for (String pragma : profile.pragmas(false)) writerStatements.execute(pragma);
+        for (SQLiteStatementCache statements : readerStatements) {
+            for (String pragma : profile.pragmas(true)) statements.execute(pragma);
+        }
+    }
+
+    /**
+     * Executes the statement on every reader connection, or on the writer if the pool has no readers
+     * @param sql the sql of the statement
+     * @throws SQLException if the statement failed
+     */
+    void executeOnReaders(String sql) throws SQLException {
+        if (readers.length == 0) writerStatements.execute(sql);
+        for (SQLiteStatementCache statements : readerStatements) statements.execute(sql);
+    }
+
+    /**
+     * @return the amount of read-only connections
+     */
+    public int getReaderCount() {
+        return readers.length;
+    }
+
+    /**
+     * Closes all connections of the pool
+     * @throws SQLException if a connection cannot be closed
+     */
+    @Override
+    public void close() throws SQLException {
+        SQLException exception = null;
+        for (int i = 0; i < readers.length; i++) {
+            if (readers[i] == null) continue;
+            try {
+                if (readerStatements[i] != null) readerStatements[i].close();
+                readers[i].close();
+            } catch (SQLException e) {
+                exception = e;
+            }
+        }
+        if (writerStatements != null) writerStatements.close();
+        if (writer != null) writer.close();
+        if (exception != null) throw exception;
+    }
+}
@@ -0,0 +1,103 @@
+package tlb1.radix.database.services;
+
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+import org.sqlite.SQLiteConfig.TempStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Named PRAGMA configurations that trade durability for throughput.
+ * Every profile uses the WAL journal, so profiles can be switched while reader connections are open.
+ * The page size only applies to databases that are created with the profile
+ */
+public enum SQLiteProfile {
+    /**
+     * Every commit is synced to disk, committed transactions survive a power loss
+     */
+    DURABLE(SynchronousMode.FULL, -2_000, 0, TempStore.DEFAULT, 4096, false),
+    /**
+     * Commits are synced at checkpoints, a power loss may roll back the last commits but never corrupts the database
+     */
+    BALANCED(SynchronousMode.NORMAL, -64_000, 256L << 20, TempStore.MEMORY, 4096, false),
+    /**
+     * Commits are never synced and the page cache is large,
+     * an operating system crash or power loss during a bulk load can corrupt the database
+     */
+    BULK_LOAD(SynchronousMode.OFF, -256_000, 256L << 20, TempStore.MEMORY, 4096, false),
+    /**
+     * Large page cache and memory map for scans, the writer connection refuses writes
+     */
+    READ_ONLY_ANALYTICS(SynchronousMode.NORMAL, -256_000, 1L << 30, TempStore.MEMORY, 8192, true);
+
+    /**
+     * The time a connection waits for a lock of another connection
+     */
+    public static final int BUSY_TIMEOUT = 5000;
+
+    private final SynchronousMode synchronous;
+    private final int cacheSize;
+    private final long mmapSize;
+    private final TempStore tempStore;
+    private final int pageSize;
+    private final boolean queryOnly;
+
+    /**
+     * @param cacheSize the page cache size, negative values are in KiB
+     * @param mmapSize the maximum amount of bytes of the database file that is memory mapped
+     */
+    SQLiteProfile(SynchronousMode synchronous, int cacheSize, long mmapSize, TempStore tempStore, int pageSize, boolean queryOnly) {
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+        this.pageSize = pageSize;
+        this.queryOnly = queryOnly;
+    }
+
+    /**
+     * @param reader true for the configuration of a read-only connection
+     * @return the configuration to open a connection with
+     */
+    public SQLiteConfig toConfig(boolean reader) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(reader);
+        if (!reader) {
+            config.setJournalMode(JournalMode.WAL);
+            config.setSynchronous(synchronous);
+            config.setPageSize(pageSize);
+        }
+        config.setCacheSize(cacheSize);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(mmapSize));
+        config.setTempStore(tempStore);
+        config.setBusyTimeout(BUSY_TIMEOUT);
+        return config;
+    }
+
+    /**
+     * @param reader true for the statements of a read-only connection
+     * @return the statements that apply the profile to an open connection, outside a transaction
+     */
+    public List<String> pragmas(boolean reader) {
+        List<String> pragmas = new ArrayList<>();
+        if (!reader) {
+            pragmas.add("PRAGMA journal_mode = WAL");
+            pragmas.add("PRAGMA synchronous = " + synchronous.name());
+            pragmas.add("PRAGMA query_only = " + queryOnly);
+        }
+        pragmas.add("PRAGMA cache_size = " + cacheSize);
+        pragmas.add("PRAGMA mmap_size = " + mmapSize);
+        pragmas.add("PRAGMA temp_store = " + tempStore.name());
+        pragmas.add("PRAGMA busy_timeout = " + BUSY_TIMEOUT);
+        return pragmas;
+    }
+
+    /**
+     * @return true if the profile refuses writes
+     */
+    public boolean isQueryOnly() {
+        return queryOnly;
+    }
+}
@@ -1,16 +1,35 @@
 package tlb1.radix.database.services;
 
 import org.sqlite.JDBC;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.core.DB;
+import tlb1.radix.database.Column;
+import tlb1.radix.database.ColumnAccessor;
+import tlb1.radix.database.FieldType;
 import tlb1.radix.database.FieldUsePredicate;
 import tlb1.radix.database.TableRegistrationPredicate;
+import tlb1.radix.database.TypeCodec;
+import tlb1.radix.database.TypeCodecs;
 import tlb1.radix.database.records.Record;
-import tlb1.radix.database.records.RecordValueSet;
+import tlb1.radix.database.records.RecordBuffer;
 
 import java.io.File;
 import java.sql.*;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * The database service implementation for SQLite
@@ -18,14 +37,34 @@ import java.util.logging.Logger;
  */
 public class SQLiteService implements DBService {
     private static final Logger logger = Logger.getLogger(SQLiteService.class.getName());
+    /**
+     * The maximum amount of identifiers that are queried using a single statement
+     */
+    private static final int MAX_ID_PARAMETERS = 128;
 
-    private final Set<String> existingTables = new HashSet<>();
-    private final List<SQLiteTable> tables = new ArrayList<>();
+    private final Set<String> existingTables = ConcurrentHashMap.newKeySet();
+    private final Map<Class<?>, SQLiteTable> tables = new ConcurrentHashMap<>();
+    private final Map<Class<?>, RecordCache<?>> caches = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    /**
+     * The cache writes of the open transaction of the writer connection, guarded by the write lock
+     */
+    private final List<Runnable> uncommittedCacheWrites = new ArrayList<>();
+    private final TypeCodecs codecs = new TypeCodecs();
 
     private TableRegistrationPredicate registrationPredicate;
     private FieldUsePredicate fieldUsePredicate;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int fetchSize;
+    private int readerCount;
 
+    private SQLiteConnectionPool pool;
     private Connection con;
+    private volatile SQLiteWriteQueue writeQueue;
+    private volatile boolean resolveReferences;
+    private SQLiteProfile profile;
+    private long mmapSize;
+    private ExecutorService scanExecutor;
 
     /**
      * The path to SQLite file itself
@@ -37,6 +76,29 @@ public class SQLiteService implements DBService {
      */
     public static final String TABLE_QUERY = "SELECT name FROM sqlite_master WHERE type='table' AND name='%s';";
 
+    private static final String TABLE_EXISTS_QUERY = "SELECT name FROM sqlite_master WHERE type='table' AND name=?;";
+
+    /**
+     * The declared types of the boolean, date and UUID columns of tables that stored the text of every value
+     */
+    private static final Set<String> LEGACY_COLUMN_TYPES = Set.of("BOOL", "DATE", "VARCHAR(36)");
+
+    /**
+     * The default amount of rows that are sent to SQLite in a single batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * The database path of a private in-memory database, it is removed once the connection is closed
+     */
+    public static final String MEMORY = ":memory:";
+
+    /**
+     * The database path of an in-memory database that is shared by all connections of the process,
+     * it is removed once the last connection is closed
+     */
+    public static final String SHARED_MEMORY = "file::memory:?cache=shared";
+
     /**
      * The default constructor
      *
@@ -66,6 +128,25 @@ public class SQLiteService implements DBService {
         }
     }
 
+    /**
+     * The pooled constructor, opens the database in WAL journal mode with a dedicated writer connection.
+     * Reads are spread over the read-only connections, writes use the writer connection.
+     * In-memory databases do not use reader connections, since every connection would open its own database
+     * or contend for the locks of the shared cache
+     *
+     * @param database the path of the sqlite file
+     * @param readerCount the amount of read-only connections
+     */
+    public SQLiteService(String database, int readerCount) {
+        this(database);
+        if (readerCount < 0) throw new IllegalArgumentException("Reader count cannot be negative");
+        if (readerCount > 0 && isMemoryDatabase()) {
+            logger.log(Level.WARNING, "In-memory database %s does not use reader connections".formatted(database));
+            readerCount = 0;
+        }
+        this.readerCount = readerCount;
+    }
+
 
     @Override
     public void setTableRegistrationPredicate(TableRegistrationPredicate predicate) {
@@ -77,14 +158,100 @@ public class SQLiteService implements DBService {
         return JDBC.PREFIX + dbPath;
     }
 
+    /**
+     * Codecs should be registered before the tables that use them, the columns of a table resolve their codecs once
+     * @return the codecs used to bind and read the values of this service
+     */
+    public TypeCodecs getCodecs() {
+        return codecs;
+    }
+
+    /**
+     * @return true if the database only exists in memory
+     */
+    public boolean isMemoryDatabase() {
+        return dbPath.equals(MEMORY) || dbPath.startsWith("file::memory:") || dbPath.contains("mode=memory");
+    }
+
+    /**
+     * @return the amount of read-only connections, 0 if reads use the writer connection
+     */
+    public int getReaderCount() {
+        return readerCount;
+    }
+
     @Override
     public void createConnection() throws SQLException {
-        if(con == null) con = DriverManager.getConnection(getDatabaseURL());
+        if (pool != null) return;
+        pool = new SQLiteConnectionPool(getDatabaseURL(), readerCount, writeLock, profile);
+        con = pool.writer();
+        if (mmapSize > 0) pool.executeOnReaders("PRAGMA mmap_size = " + mmapSize);
     }
 
     @Override
     public void closeConnection() throws SQLException {
-        con.close();
+        if (writeQueue != null) writeQueue.close();
+        writeQueue = null;
+        synchronized (this) {
+            if (scanExecutor != null) scanExecutor.shutdown();
+            scanExecutor = null;
+        }
+        writeLock.lock();
+        try {
+            pool.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Switches the PRAGMA profile of the database, for example to {@link SQLiteProfile#BULK_LOAD} during a bulk load.
+     * Before the connection is created the profile is used to open the connections,
+     * afterwards it is applied to the open connections once the running writes are committed
+     * @param profile the profile to use
+     * @throws IllegalStateException if the profile could not be applied
+     */
+    public void setProfile(SQLiteProfile profile) {
+        if (profile == null) throw new IllegalArgumentException("Profile should not be null");
+        writeLock.lock();
+        try {
+            if (pool != null) pool.apply(profile);
+            this.profile = profile;
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not apply profile %s".formatted(profile));
+            throw new IllegalStateException("Could not apply profile %s".formatted(profile));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the active PRAGMA profile, or null if the connections use the driver defaults
+     */
+    public SQLiteProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Enables the concurrent write mode, all inserts, updates and deletes are executed by a dedicated writer thread.
+     * Writes that arrive within the flush interval are committed in a single transaction,
+     * the blocking write methods return once the transaction of their write is committed
+     *
+     * @param flushInterval the time writes are collected before they are committed
+     */
+    public void enableGroupCommit(Duration flushInterval) {
+        if (con == null) throw new IllegalStateException("Connection should be created before enabling group commit");
+        if (writeQueue != null) writeQueue.close();
+        writeQueue = new SQLiteWriteQueue(con, writeLock, flushInterval,
+                this::commitCacheWrites, () -> rollbackCacheWrites(0));
+    }
+
+    /**
+     * Stops the concurrent write mode after committing the queued writes
+     */
+    public void disableGroupCommit() {
+        if (writeQueue != null) writeQueue.close();
+        writeQueue = null;
     }
 
     @Override
@@ -92,14 +259,106 @@ public class SQLiteService implements DBService {
         logger.setLevel(level);
     }
 
+    @Override
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size should be at least 1");
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) throw new IllegalArgumentException("Fetch size cannot be negative");
+        this.fetchSize = fetchSize;
+    }
+
     /**
-     * Used to completely remove the database from the system
+     * Used to completely remove the database from the system,
+     * an in-memory database is removed by closing the connection
      *
      * @throws SQLException if an error occurs while accessing the database
      */
     public void eradicate() throws SQLException {
         if (!con.isClosed()) closeConnection();
+        caches.values().forEach(RecordCache::clear);
+        if (isMemoryDatabase()) return;
         if (!new File(dbPath).delete()) throw new IllegalStateException("DB File could not be deleted");
+        for (String suffix : new String[]{"-wal", "-shm", "-journal"}) {
+            new File(dbPath + suffix).delete();
+        }
+    }
+
+    /**
+     * Memory maps the database file for the reads, which avoids copying pages from the operating system for large files.
+     * The writer connection is used if there are no reader connections
+     * @param bytes the maximum amount of bytes of the database file that is memory mapped, 0 to disable memory mapping
+     * @throws IllegalStateException if the memory map could not be configured
+     */
+    public void setMmapSize(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("Memory map size cannot be negative");
+        writeLock.lock();
+        try {
+            if (pool != null) pool.executeOnReaders("PRAGMA mmap_size = " + bytes);
+            mmapSize = bytes;
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not configure the memory map of %s".formatted(dbPath));
+            throw new IllegalStateException("Could not configure the memory map of %s".formatted(dbPath));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Copies the database to a file using the SQLite backup API, for example to snapshot an in-memory database.
+     * Writes wait until the backup is complete
+     * @param file the path of the backup file, it is overwritten
+     * @throws IllegalStateException if the backup failed
+     */
+    public void backup(String file) {
+        writeLock.lock();
+        try {
+            checkResult(database().backup("main", file, null));
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not back up %s to %s".formatted(dbPath, file));
+            throw new IllegalStateException("Could not back up %s to %s".formatted(dbPath, file));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the content of the database with a backup file using the SQLite backup API.
+     * The attached record caches are cleared and registered tables that are missing from the backup are created again
+     * @param file the path of the backup file
+     * @throws IllegalStateException if the restore failed or a registered table could not be created
+     */
+    public void restore(String file) {
+        writeLock.lock();
+        try {
+            try {
+                checkResult(database().restore("main", file, null));
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "Could not restore %s from %s".formatted(dbPath, file));
+                throw new IllegalStateException("Could not restore %s from %s".formatted(dbPath, file));
+            } finally {
+                existingTables.clear();
+                caches.values().forEach(RecordCache::clear);
+            }
+            tables.values().forEach(this::createTable);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * The file names are passed to the driver as they are, they are never part of an SQL statement
+     * @return the database of the writer connection
+     */
+    private DB database() throws SQLException {
+        return con.unwrap(SQLiteConnection.class).getDatabase();
+    }
+
+    private static void checkResult(int result) throws SQLException {
+        if (result != SQLiteErrorCode.SQLITE_OK.code) throw new SQLException("SQLite error code " + result);
     }
 
     /**
@@ -107,16 +366,97 @@ public class SQLiteService implements DBService {
      */
     @Override
     public SQLiteTable registerTable(Class<? extends Record> tableType) {
-        SQLiteTable table = new SQLiteTable(tableType, fieldUsePredicate);
+        SQLiteTable table = new SQLiteTable(tableType, fieldUsePredicate, codecs);
+        writeLock.lock();
+        try {
+            createTable(table);
+            tables.put(tableType, table);
+            return table;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Creates the table if it does not exist yet, and its indexes
+     * @throws IllegalStateException if the table could not be created
+     */
+    private void createTable(SQLiteTable table) {
+        writeLock.lock();
         try {
             if (!tableExists(table.getName())) {
                 exec(table.createTableQuery());
+            } else {
+                migrateLegacyColumns(table);
+                createIndex(table, table.identifierIndexQuery());
+            }
+            for (String indexQuery : table.createIndexQueries()) {
+                createIndex(table, indexQuery);
             }
-            tables.add(table);
-            return table;
         }catch (SQLException e){
-            logger.log(Level.SEVERE, "Could not create table for %s.".formatted(tableType.getName()));
-            throw new IllegalStateException("Could not create table for %s.".formatted(tableType.getName()));
+            logger.log(Level.SEVERE, "Could not create table for %s.".formatted(table.getType().getName()));
+            throw new IllegalStateException("Could not create table for %s.".formatted(table.getType().getName()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Tables created before booleans, dates and UUIDs were stored in their native storage class contain the text of these values,
+     * which never matches the values that are bound by lookups. The text is converted once using the codec of the column
+     */
+    private void migrateLegacyColumns(SQLiteTable table) throws SQLException {
+        Set<String> legacyColumns = pool.writerStatements().query("PRAGMA table_info(%s)".formatted(table.getName()),
+                SQLiteStatementCache.Binder.NONE, result -> {
+                    Set<String> names = new HashSet<>();
+                    while (result.next()) {
+                        if (LEGACY_COLUMN_TYPES.contains(result.getString("type").toUpperCase())) names.add(result.getString("name"));
+                    }
+                    return names;
+                });
+        for (Column column : table.getColumns()) {
+            FieldType type = column.getType();
+            if (!legacyColumns.contains(column.getName()) || column.getCodec() == null) continue;
+            if (type != FieldType.BOOLEAN && type != FieldType.DATE && type != FieldType.UUID) continue;
+            migrateLegacyColumn(table, column);
+        }
+    }
+
+    private void migrateLegacyColumn(Table table, Column column) throws SQLException {
+        TypeCodec<?> codec = column.getCodec();
+        Map<Long, Object> values = pool.writerStatements().query("SELECT rowid, %s FROM %s WHERE typeof(%s) = 'text'"
+                .formatted(column.getName(), table.getName(), column.getName()), SQLiteStatementCache.Binder.NONE, result -> {
+            Map<Long, Object> rows = new LinkedHashMap<>();
+            while (result.next()) rows.put(result.getLong(1), codec.read(result, 2));
+            return rows;
+        });
+        if (values.isEmpty()) return;
+
+        logger.log(Level.INFO, "Converting %d values of column %s of table %s".formatted(values.size(), column.getName(), table.getName()));
+        try (PreparedStatement statement = con.prepareStatement("UPDATE %s SET %s = ? WHERE rowid = ?"
+                .formatted(table.getName(), column.getName()))) {
+            inTransaction(() -> {
+                for (Map.Entry<Long, Object> row : values.entrySet()) {
+                    if (row.getValue() == null) statement.setNull(1, Types.NULL);
+                    else codec.bindObject(statement, 1, row.getValue());
+                    statement.setLong(2, row.getKey());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            });
+        }
+    }
+
+    /**
+     * A table that already contains duplicate values can still be used without its unique indexes,
+     * the unique identifier index is required for upserts on tables without a primary key
+     */
+    private void createIndex(Table table, String indexQuery) {
+        if (indexQuery == null) return;
+        try {
+            exec(indexQuery);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Could not create index for table: %s.".formatted(table.getName()));
         }
     }
 
@@ -127,39 +467,42 @@ public class SQLiteService implements DBService {
     public boolean tableExists(String tableName) {
         if (existingTables.contains(tableName)) return true;
 
-        try{
-            boolean exists = con.createStatement().executeQuery(String.format(TABLE_QUERY, tableName)).next();
+        writeLock.lock();
+        try {
+            boolean exists = pool.writerStatements().query(TABLE_EXISTS_QUERY,
+                    statement -> statement.setString(1, tableName), ResultSet::next);
             if (exists) existingTables.add(tableName);
             return exists;
         }catch (SQLException e){
             logger.log(Level.WARNING, "Could not check if table: %s exists.".formatted(tableName));
             return false;
+        } finally {
+            writeLock.unlock();
         }
     }
 
 
     @Override
     public boolean tableExists(Class<?> type) {
-        for (SQLiteTable table : tables) {
-            if (table.type == type) return true;
-        }
-        return false;
+        return tables.containsKey(type);
     }
 
-    private Table getTable(Class<?> type) {
-        for (SQLiteTable table : tables) {
-            if (table.type.equals(type)) return table;
-        }
-        return null;
+    @Override
+    public SQLiteTable getTable(Class<?> type) {
+        return tables.get(type);
     }
 
     private Table getOrCreateTable(Class<? extends Record> type) {
-        Table table = getTable(type);
+        Table table = tables.get(type);
         if (table != null) return table;
-        if (registrationPredicate.shouldRegister(type)) {
-            registerTable(type);
+        if (!registrationPredicate.shouldRegister(type)) return null;
+        writeLock.lock();
+        try {
+            table = tables.get(type);
+            return table != null ? table : registerTable(type);
+        } finally {
+            writeLock.unlock();
         }
-        return getTable(type);
     }
 
     /**
@@ -171,7 +514,7 @@ public class SQLiteService implements DBService {
         try {
             Table table = getTable(type);
             if (table == null) return true;
-            return !execQuery(table.selectTableQuery() + " LIMIT 1").next();
+            return !readerStatements().query(table.selectTableQuery(1), SQLiteStatementCache.Binder.NONE, ResultSet::next);
         } catch (SQLException e) {
             logger.log(Level.WARNING, "Could not check if table for %s is empty.".formatted(type.getName()));
             return false;
@@ -188,9 +531,10 @@ public class SQLiteService implements DBService {
         try {
             Table table = getTable(type);
             if (table == null) return 0;
-            ResultSet result = execQuery("SELECT COUNT(*) FROM %s".formatted(table.getName()));
-            result.next();
-            return result.getLong(1);
+            return readerStatements().query(table.countRecordsQuery(), SQLiteStatementCache.Binder.NONE, result -> {
+                result.next();
+                return result.getLong(1);
+            });
         } catch (SQLException e) {
             logger.log(Level.WARNING, "Could not check record count of table for %s.".formatted(type.getName()));
             return -1;
@@ -204,6 +548,8 @@ public class SQLiteService implements DBService {
      * @return the list of records retrieved from the database
      */
     public <T> List<T> getRecords(Class<T> type) {
+        Table table = getTable(type);
+        if (resolveReferences && table != null) return queryRecords(table, type, table.selectTableQuery(), List.of());
         try {
             TableReader<T> tableReader = new TableReader<>(type, this);
             return tableReader.call();
@@ -214,16 +560,486 @@ public class SQLiteService implements DBService {
     }
 
     /**
+     * Reads all records of a type by splitting the table into rowid ranges,
+     * every range is read and mapped concurrently on its own reader connection.
+     * Falls back to {@link #getRecords(Class)} if the service has less than two reader connections or within a transaction.
+     * The ranges are not read from a single snapshot, writes that commit during the read can be seen by some ranges only.
+     * References are not resolved by parallel reads
+     * @param type record type to retrieve
+     * @return the records in rowid order
+     * @throws IllegalStateException if no table is registered for the type or a range could not be read
+     */
+    public <T> List<T> getRecordsInParallel(Class<T> type) {
+        List<CompletableFuture<List<T>>> ranges = scanRanges(type);
+        if (ranges == null) return getRecords(type);
+        List<T> records = new ArrayList<>();
+        for (CompletableFuture<List<T>> range : ranges) records.addAll(join(range));
+        return records;
+    }
+
+    /**
+     * Reads all records of a type like {@link #getRecordsInParallel(Class)},
+     * the records of a range can be consumed as soon as the range is read
+     * @param type record type to retrieve
+     * @return the stream of the records in rowid order
+     * @throws IllegalStateException if no table is registered for the type or a range could not be read
+     */
+    public <T> Stream<T> streamInParallel(Class<T> type) {
+        List<CompletableFuture<List<T>>> ranges = scanRanges(type);
+        if (ranges == null) return getRecords(type).stream();
+        return ranges.stream().flatMap(range -> join(range).stream());
+    }
+
+    /**
+     * Starts reading the rowid ranges of the table, one range per reader connection
+     * @return the reads of the ranges in rowid order, or null if there are not enough reader connections
+     */
+    private <T> List<CompletableFuture<List<T>>> scanRanges(Class<T> type) {
+        Table table = getRegisteredTable(type);
+        int readers = pool.getReaderCount();
+        if (readers < 2 || isInTransaction()) return null;
+
+        long[] bounds;
+        try {
+            bounds = pool.readerStatements().query(table.rowRangeQuery(), SQLiteStatementCache.Binder.NONE, result -> {
+                result.next();
+                long min = result.getLong(1);
+                return result.wasNull() ? null : new long[]{min, result.getLong(2)};
+            });
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not query the rows of type %s".formatted(type.getName()));
+            throw new IllegalStateException("Could not query the rows of type %s".formatted(type.getName()));
+        }
+        if (bounds == null) return List.of();
+
+        ExecutorService executor = getScanExecutor();
+        // The span between the rowids can exceed Long.MAX_VALUE, the offsets are computed as unsigned values
+        long span = bounds[1] - bounds[0];
+        long size = Long.divideUnsigned(span, readers);
+        long larger = Long.remainderUnsigned(span, readers) + 1;
+        List<CompletableFuture<List<T>>> ranges = new ArrayList<>(readers);
+        long from = bounds[0];
+        for (int i = 0; i < readers; i++) {
+            long length = i < larger ? size + 1 : size;
+            if (length == 0) break;
+            long rangeFrom = from;
+            long rangeTo = from + (length - 1);
+            from = rangeTo + 1;
+            SQLiteStatementCache statements = pool.readerStatements(i);
+            ranges.add(CompletableFuture.supplyAsync(() -> readRecords(statements, table, type,
+                    table.selectRowRangeQuery(), List.of(rangeFrom, rangeTo), null), executor));
+        }
+        return ranges;
+    }
+
+    /**
+     * @return the executor of the parallel reads, with a thread per reader connection
+     */
+    private synchronized ExecutorService getScanExecutor() {
+        if (scanExecutor != null) return scanExecutor;
+        AtomicInteger threads = new AtomicInteger();
+        scanExecutor = Executors.newFixedThreadPool(pool.getReaderCount(), runnable -> {
+            Thread thread = new Thread(runnable, "radix-sqlite-reader-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return scanExecutor;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> RecordCursor<T> cursor(Class<T> type) {
+        Table table = getRegisteredTable(type);
+        return queryCursor(table, type, table.selectTableQuery(), List.of());
+    }
+
+    @Override
+    public <T> Query<T> query(Class<T> type) {
+        return new Query<>(this, type, getRegisteredTable(type));
+    }
+
+    /**
+     * Uses the cache of the type if there is one, misses are loaded into the cache.
+     * Transactions do not use the caches, they may read writes that are not committed yet
+     */
+    @Override
+    public <T> Optional<T> findById(Class<T> type, Object id) {
+        Table table = getRegisteredTable(type);
+        if (id == null) return Optional.empty();
+        RecordCache<?> cache = isInTransaction() ? null : caches.get(type);
+        if (cache != null) return Optional.ofNullable(type.cast(cache.get(id)));
+        return loadById(table, type, id);
+    }
+
+    private <T> Optional<T> loadById(Table table, Class<T> type, Object id) {
+        List<T> records = queryRecords(table, type, table.selectRecordQuery(), List.of(id));
+        return records.isEmpty() ? Optional.empty() : Optional.of(records.get(0));
+    }
+
+    @Override
+    public <T> List<T> findAllByIds(Class<T> type, Collection<?> ids) {
+        Table table = getRegisteredTable(type);
+        ReferenceResolver resolver = createResolver(table, type);
+        List<T> records = loadAllByIds(table, type, ids, resolver);
+        if (resolver != null) resolver.resolve();
+        return records;
+    }
+
+    /**
+     * Uses the cache of the type if there is one and no transaction is open, only the missing identifiers are queried.
+     * The identifiers are queried in chunks, the parameter count of a chunk is rounded up to a power of two
+     * by repeating the last identifier, so every table only uses a few cached statements
+     * @param resolver collects the references of the queried records, null to leave the references unresolved
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> loadAllByIds(Table table, Class<T> type, Collection<?> ids, ReferenceResolver resolver) {
+        RecordCache<Record> cache = isInTransaction() ? null : (RecordCache<Record>) caches.get(type);
+        List<Object> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
+        List<T> records = new ArrayList<>(distinct.size());
+        if (cache != null) {
+            distinct.removeIf(id -> {
+                Record record = cache.getIfPresent(id);
+                if (record != null) records.add(type.cast(record));
+                return record != null;
+            });
+        }
+
+        for (int from = 0; from < distinct.size(); from += MAX_ID_PARAMETERS) {
+            List<Object> chunk = new ArrayList<>(distinct.subList(from, Math.min(from + MAX_ID_PARAMETERS, distinct.size())));
+            int count = chunk.size() == 1 ? 1 : Integer.highestOneBit(chunk.size() - 1) << 1;
+            Object last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < count) chunk.add(last);
+            List<T> loaded = readRecords(table, type, table.selectRecordsQuery(count), chunk, resolver);
+            if (cache != null) loaded.forEach(record -> cache.put((Record) record));
+            records.addAll(loaded);
+        }
+        return records;
+    }
+
+    /**
+     * Loads the referred records of a type into the identity map of the resolver
+     */
+    void loadReferences(Class<?> type, Collection<Object> ids, ReferenceResolver resolver) {
+        Table table = getTable(type);
+        if (table == null || !table.hasIdentifier()) return;
+        ColumnAccessor identifier = table.getIdentifier().getAccessor();
+        for (Object record : loadAllByIds(table, type, ids, resolver)) {
+            resolver.register(type, identifier.get(record), record);
+        }
+    }
+
+    /**
+     * @param resolveReferences true to load the records referred to by the records that are read.
+     * The references of the records of a single read are resolved together using one lookup per referred type,
+     * records that are referred to multiple times are the same instance.
+     * Cursors and streams do not resolve references
+     */
+    public void setResolveReferences(boolean resolveReferences) {
+        this.resolveReferences = resolveReferences;
+    }
+
+    /**
+     * @return the resolver of a read, or null if the references of the type do not have to be resolved
+     */
+    private ReferenceResolver createResolver(Table table, Class<?> type) {
+        if (!resolveReferences || !table.getRecordMapper(type).hasReferences()) return null;
+        return new ReferenceResolver(this);
+    }
+
+    /**
+     * Creates and attaches an unbounded cache of a type, int and long identifiers are stored without boxing
+     * @param type the record type to cache
+     * @return the cache of the type
+     * @throws IllegalStateException if no table is registered for the type or it has no identifier
+     */
+    public <T extends Record> RecordCache<T> enableCache(Class<T> type) {
+        RecordCache<T> cache = new RecordCache<>(type);
+        setCache(type, cache);
+        return cache;
+    }
+
+    /**
+     * Creates and attaches a cache that keeps the least recently used records of a type
+     * @param type the record type to cache
+     * @param maximumSize the maximum amount of cached records
+     * @return the cache of the type
+     * @throws IllegalStateException if no table is registered for the type or it has no identifier
+     */
+    public <T extends Record> RecordCache<T> enableCache(Class<T> type, long maximumSize) {
+        RecordCache<T> cache = new RecordCache<>(type, maximumSize);
+        setCache(type, cache);
+        return cache;
+    }
+
+    /**
+     * Attaches the cache to the service, the cache is used by the lookups by identifier,
+     * loads misses from the database and is kept up-to-date by the writes of this service
+     * @param type the record type of the cache
+     * @param cache the cache, its loader is replaced
+     * @throws IllegalStateException if no table is registered for the type or it has no identifier
+     */
+    public <T extends Record> void setCache(Class<T> type, RecordCache<T> cache) {
+        Table table = getRegisteredTable(type);
+        if (!table.hasIdentifier()) {
+            logger.log(Level.SEVERE, "Records of type %s cannot be cached without an Identifier".formatted(type.getName()));
+            throw new IllegalStateException("Records of type %s cannot be cached without an Identifier".formatted(type.getName()));
+        }
+        cache.setLoader(id -> loadById(table, type, id));
+        caches.put(type, cache);
+    }
+
+    /**
+     * @param type the record type of the cache
+     * @return the cache of the type, or null if the type is not cached
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Record> RecordCache<T> getCache(Class<T> type) {
+        return (RecordCache<T>) caches.get(type);
+    }
+
+    /**
+     * Detaches the cache of the type, the records are read from the database again
+     * @param type the record type of the cache
+     */
+    public void disableCache(Class<?> type) {
+        RecordCache<?> cache = caches.remove(type);
+        if (cache != null) cache.setLoader(null);
+    }
+
+    /**
+     * Writes the inserted records through to the cache of their type once they are committed
+     */
+    @SuppressWarnings("unchecked")
+    private void cacheInserted(Table table, Collection<? extends Record> records) {
+        RecordCache<Record> cache = (RecordCache<Record>) caches.get(table.getType());
+        if (cache == null) return;
+        List<Record> inserted = new ArrayList<>(records);
+        afterCommit(() -> inserted.forEach(cache::put));
+    }
+
+    /**
+     * Removes the updated records from the cache of their type once they are committed.
+     * Read-only columns are not written, so the records are read again instead of caching the written objects
+     */
+    private void cacheUpdated(Table table, Collection<? extends Record> records) {
+        if (!caches.containsKey(table.getType())) return;
+        ColumnAccessor identifier = table.getIdentifier().getAccessor();
+        List<Object> ids = new ArrayList<>(records.size());
+        for (Record record : records) ids.add(identifier.get(record));
+        cacheDeleted(table, ids);
+    }
+
+    /**
+     * Removes the deleted records from the cache of their type once they are committed
+     */
+    private void cacheDeleted(Table table, Collection<?> ids) {
+        RecordCache<?> cache = caches.get(table.getType());
+        if (cache == null) return;
+        afterCommit(() -> ids.forEach(cache::invalidate));
+    }
+
+    /**
+     * Defers the cache write until the transaction of the current thread is committed,
+     * writes outside of a transaction are committed already
+     */
+    private void afterCommit(Runnable cacheWrite) {
+        if (isInTransaction()) uncommittedCacheWrites.add(cacheWrite);
+        else cacheWrite.run();
+    }
+
+    /**
+     * @return if the current thread holds the writer connection while a transaction is open
+     */
+    private boolean isInTransaction() {
+        if (!writeLock.isHeldByCurrentThread()) return false;
+        try {
+            return !con.getAutoCommit();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Applies the cache writes of the committed transaction, the write lock should be held
+     */
+    private void commitCacheWrites() {
+        uncommittedCacheWrites.forEach(Runnable::run);
+        uncommittedCacheWrites.clear();
+    }
+
+    /**
+     * Discards the cache writes that were made after the mark, the write lock should be held
+     * @param mark the amount of cache writes to keep
+     */
+    private void rollbackCacheWrites(int mark) {
+        uncommittedCacheWrites.subList(mark, uncommittedCacheWrites.size()).clear();
+    }
+
+    /**
+     * @throws IllegalStateException if no table is registered for the type
+     */
+    private Table getRegisteredTable(Class<?> type) {
+        Table table = getTable(type);
+        if (table == null) {
+            logger.log(Level.SEVERE, "No table is registered for type %s".formatted(type.getName()));
+            throw new IllegalStateException("No table is registered for type %s".formatted(type.getName()));
+        }
+        return table;
+    }
+
+    /**
+     * Executes a select query of the table using a cached statement of a reader connection
+     * @return all mapped records of the query
+     */
+    <T> List<T> queryRecords(Table table, Class<T> type, String query, List<Object> parameters) {
+        ReferenceResolver resolver = createResolver(table, type);
+        List<T> records = readRecords(table, type, query, parameters, resolver);
+        if (resolver != null) resolver.resolve();
+        return records;
+    }
+
+    /**
+     * @param resolver collects the references of the records, null to leave the references unresolved
+     */
+    private <T> List<T> readRecords(Table table, Class<T> type, String query, List<Object> parameters, ReferenceResolver resolver) {
+        return readRecords(readerStatements(), table, type, query, parameters, resolver);
+    }
+
+    /**
+     * @param statements the statement cache of the connection to read from
+     */
+    private <T> List<T> readRecords(SQLiteStatementCache statements, Table table, Class<T> type, String query,
+                                    List<Object> parameters, ReferenceResolver resolver) {
+        RecordMapper<T> mapper = table.getRecordMapper(type);
+        ColumnAccessor identifier = resolver == null || !table.hasIdentifier() ? null : table.getIdentifier().getAccessor();
+        try {
+            return statements.query(query, statement -> bind(statement, parameters), result -> {
+                RowMapper<T> rowMapper = mapper.bind(result.getMetaData());
+                List<T> records = new ArrayList<>();
+                while (result.next()) {
+                    if (resolver == null) {
+                        records.add(rowMapper.map(result));
+                        continue;
+                    }
+                    T record = rowMapper.map(result, resolver);
+                    if (identifier != null) resolver.register(type, identifier.get(record), record);
+                    records.add(record);
+                }
+                return records;
+            });
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not query records for type %s".formatted(type.getName()));
+            throw new IllegalStateException("Could not query records for type %s".formatted(type.getName()));
+        }
+    }
+
+    /**
+     * Executes a select query of the table using its own statement on a reader connection.
+     * Without reader connections the writer connection stays locked until the cursor is closed,
+     * which should be done by the thread that opened the cursor
+     * @return the cursor that owns the statement
+     */
+    <T> RecordCursor<T> queryCursor(Table table, Class<T> type, String query, List<Object> parameters) {
+        SQLiteStatementCache statements = lockReader();
+        PreparedStatement statement = null;
+        try {
+            statement = statements.getConnection().prepareStatement(query);
+            statement.setFetchSize(fetchSize);
+            bind(statement, parameters);
+            return new RecordCursor<>(statement, statement.executeQuery(), table.getRecordMapper(type), () -> unlockReader(statements));
+        } catch (RuntimeException e) {
+            closeQuietly(statement);
+            unlockReader(statements);
+            throw e;
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            unlockReader(statements);
+            logger.log(Level.SEVERE, "Could not query records for type %s".formatted(type.getName()));
+            throw new IllegalStateException("Could not query records for type %s".formatted(type.getName()));
+        }
+    }
+
+    /**
+     * Executes a count query using a cached statement of a reader connection
+     */
+    long queryCount(String query, List<Object> parameters) {
+        try {
+            return readerStatements().query(query, statement -> bind(statement, parameters), result -> {
+                result.next();
+                return result.getLong(1);
+            });
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not execute count query: %s".formatted(query));
+            throw new IllegalStateException("Could not execute count query: %s".formatted(query));
+        }
+    }
+
+    @Override
+    public <T> Stream<T> stream(Class<T> type) {
+        return cursor(type).stream();
+    }
+
+    private static void closeQuietly(Statement statement) {
+        if (statement == null) return;
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+
+        }
+    }
+
+    /**
+     * Returns the statement cache of a connection for a result that stays open after the call, like a cursor.
+     * Reader connections are never used by writes, so they are not locked.
+     * Without readers the writer connection is locked until {@link #unlockReader} is called by the same thread,
+     * so writes of other threads wait until the result is closed
+     */
+    private SQLiteStatementCache lockReader() {
+        SQLiteStatementCache statements = readerStatements();
+        if (statements == pool.writerStatements()) statements.lock();
+        return statements;
+    }
+
+    private void unlockReader(SQLiteStatementCache statements) {
+        if (statements == pool.writerStatements()) statements.unlock();
+    }
+
+    /**
+     * A transaction reads using the writer connection, so it reads its own writes
+     * @return the statement cache of the connection for the next read of the current thread
+     */
+    private SQLiteStatementCache readerStatements() {
+        return isInTransaction() ? pool.writerStatements() : pool.readerStatements();
+    }
+
+    /**
+     * Without reader connections the writer connection stays locked until the result or its statement is closed,
+     * which should be done by the thread that called this method
      * @param type record type to retrieve
      * @return null if something went wrong
      */
     @Override
     public ResultSet retrieveAll(Class<?> type) {
+        Table table = getTable(type);
+        if (table == null) return null;
+        SQLiteStatementCache statements = lockReader();
+        Statement statement = null;
         try {
-            Table table = getTable(type);
-            if (table == null) return null;
-            return execQuery(table.selectTableQuery());
+            statement = statements.getConnection().createStatement();
+            ResultSet result = statement.executeQuery(table.selectTableQuery());
+            return ReleasingResultSet.wrap(statement, result, () -> unlockReader(statements));
         } catch (SQLException e) {
+            closeQuietly(statement);
+            unlockReader(statements);
             return null;
         }
     }
@@ -236,7 +1052,8 @@ public class SQLiteService implements DBService {
             throw new IllegalArgumentException("No table could be created for this record type: %s.".formatted(record.getClass()));
         }
 
-        insert(table, table.prepareInsert(record));
+        write(() -> insert(table, List.of(record)));
+        cacheInserted(table, List.of(record));
     }
 
     @Override
@@ -250,55 +1067,373 @@ public class SQLiteService implements DBService {
             throw new IllegalArgumentException("No table could be created for this record type: %s.".formatted(record.getClass()));
         }
 
-        insert(table, table.prepareInsert(records));
+        write(() -> insert(table, records));
+        cacheInserted(table, records);
     }
 
+    /**
+     * Updates all columns except the identifier and read-only columns,
+     * nothing happens if no record with the same identifier exists
+     */
     @Override
     public void update(Record record) {
-        for (SQLiteTable table : tables) {
-            if (table.type != record.getClass()) continue;
-            delete(record);
-            insert(record);
-            break;
+        Table table = getTable(record.getClass());
+        if (table == null) return;
+        write(() -> update(table, List.of(record)));
+        cacheUpdated(table, List.of(record));
+    }
+
+    @Override
+    public void upsert(Record record) {
+        upsert(List.of(record));
+    }
+
+    @Override
+    public void upsert(Collection<? extends Record> records) {
+        if (records.isEmpty()) return;
+        Record record = records.iterator().next();
+        if (record == null) return;
+        Table table = getOrCreateTable(record.getClass());
+        if (table == null){
+            logger.log(Level.SEVERE, "No table could be created for this record type: %s.".formatted(record.getClass()));
+            throw new IllegalArgumentException("No table could be created for this record type: %s.".formatted(record.getClass()));
         }
+
+        write(() -> upsert(table, records));
+        cacheUpdated(table, records);
     }
 
+    @Override
+    public void update(Collection<? extends Record> records) {
+        Table table = getTable(records);
+        if (table == null) return;
+        write(() -> update(table, records));
+        cacheUpdated(table, records);
+    }
+
+    @Override
     public void delete(Record record) {
-        for (SQLiteTable table : tables) {
-            if (table.type != record.getClass()) continue;
-            try (PreparedStatement statement = con.prepareStatement(table.deleteRecordQuery())) {
-                statement.setString(1, table.getIdentifier().getField().get(record).toString());
-                statement.execute();
-            } catch (SQLException | IllegalAccessException e) {
-                logger.log(Level.SEVERE, "Record of type: %s could not be deleted.".formatted(record.getClass()));
-                throw new IllegalArgumentException("Record of type: %s could not be deleted.".formatted(record.getClass()));
-            }
-            break;
+        Table table = getTable(record.getClass());
+        if (table == null) return;
+        List<Object> ids = Collections.singletonList(table.getIdentifier().getAccessor().get(record));
+        write(() -> deleteByIds(table, ids));
+        cacheDeleted(table, ids);
+    }
+
+    @Override
+    public void delete(Collection<? extends Record> records) {
+        Table table = getTable(records);
+        if (table == null) return;
+        List<Object> ids = new ArrayList<>(records.size());
+        for (Record record : records) {
+            if (record.getClass() != table.getType()) throw new IllegalArgumentException("Object should be of type " + table.getType().getName());
+            ids.add(table.getIdentifier().getAccessor().get(record));
         }
+        write(() -> deleteByIds(table, ids));
+        cacheDeleted(table, ids);
+    }
+
+    @Override
+    public void deleteByIds(Class<?> type, Collection<?> ids) {
+        Table table = getTable(type);
+        if (table == null || ids.isEmpty()) return;
+        write(() -> deleteByIds(table, ids));
+        cacheDeleted(table, ids);
     }
 
-    private void insert(Table table, RecordValueSet recordValueSet) {
-        StringBuilder statement = new StringBuilder("INSERT INTO ");
-        statement.append(table.getName()).append(" (");
-        recordValueSet.getColumns().forEach(column -> statement.append(column).append(", "));
-        statement.delete(statement.length() - 2, statement.length()).append(") VALUES (");
+    /**
+     * @return the table of the first record, or null if there is none
+     */
+    private Table getTable(Collection<? extends Record> records) {
+        if (records.isEmpty()) return null;
+        Record record = records.iterator().next();
+        if (record == null) return null;
+        return getTable(record.getClass());
+    }
 
-        recordValueSet.prepare();
-        while (recordValueSet.hasNext()) {
-            recordValueSet.nextRecord().forEach(
-                    value -> statement.append("'").append(value.replace("'", "''")).append("', "));
+    /**
+     * The transaction runs on the writer thread in the concurrent write mode.
+     * Reads of the given service use the writer connection and bypass the record caches, so they see the writes of the transaction.
+     * The writes of the transaction are applied to the attached record caches once it is committed
+     */
+    @Override
+    public void inTransaction(Consumer<DBService> action) {
+        write(() -> {
+            int mark = uncommittedCacheWrites.size();
+            try {
+                if (con.getAutoCommit()) {
+                    inTransaction(() -> action.accept(this));
+                    commitCacheWrites();
+                } else inSavepoint(() -> action.accept(this));
+            } catch (SQLException e) {
+                rollbackCacheWrites(mark);
+                logger.log(Level.SEVERE, "Transaction could not be committed");
+                throw new IllegalStateException("Transaction could not be committed");
+            } catch (RuntimeException e) {
+                rollbackCacheWrites(mark);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Inserts the record, using the writer thread in the concurrent write mode
+     * @return the future that completes once the record is committed
+     */
+    public CompletableFuture<Void> insertAsync(Record record) {
+        return writeAsync(() -> insert(record));
+    }
+
+    /**
+     * Inserts the records, using the writer thread in the concurrent write mode
+     * @return the future that completes once the records are committed
+     */
+    public CompletableFuture<Void> insertAsync(Collection<? extends Record> records) {
+        return writeAsync(() -> insert(records));
+    }
 
-            statement.replace(statement.length() - 2, statement.length() - 1, "),").append("(");
+    /**
+     * Updates the record, using the writer thread in the concurrent write mode
+     * @return the future that completes once the update is committed
+     */
+    public CompletableFuture<Void> updateAsync(Record record) {
+        return writeAsync(() -> update(record));
+    }
+
+    /**
+     * Deletes the record, using the writer thread in the concurrent write mode
+     * @return the future that completes once the delete is committed
+     */
+    public CompletableFuture<Void> deleteAsync(Record record) {
+        return writeAsync(() -> delete(record));
+    }
+
+    /**
+     * Executes the write on the writer thread in the concurrent write mode and waits for its commit,
+     * otherwise executes the write directly while holding the write lock
+     */
+    private void write(Runnable write) {
+        SQLiteWriteQueue queue = writeQueue;
+        // A thread that holds the write lock, for example while reading a cursor, would wait for itself on the queue
+        if (queue == null || queue.isWriterThread() || writeLock.isHeldByCurrentThread()) {
+            writeLock.lock();
+            try {
+                write.run();
+            } finally {
+                writeLock.unlock();
+            }
+            return;
+        }
+        join(queue.submit(() -> {
+            write.run();
+            return null;
+        }));
+    }
+
+    /**
+     * Runs the write on the writer thread in the concurrent write mode without waiting for its commit
+     */
+    private CompletableFuture<Void> writeAsync(Runnable write) {
+        SQLiteWriteQueue queue = writeQueue;
+        if (queue != null && !queue.isWriterThread()) {
+            return queue.submit(() -> {
+                write.run();
+                return null;
+            });
         }
-        statement.replace(statement.length() - 4, statement.length(), "); ");
         try {
-            exec(statement.toString());
+            write.run();
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Deletes the records with the identifiers using a cached prepared statement,
+     * in chunks of the batch size within a single transaction
+     */
+    private void deleteByIds(Table table, Collection<?> ids) {
+        try {
+            PreparedStatement statement = prepare(table.deleteRecordQuery());
+            try {
+                inTransaction(() -> {
+                    int pending = 0;
+                    for (Object id : ids) {
+                        bind(statement, 1, id);
+                        statement.addBatch();
+                        if (++pending < batchSize) continue;
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                    if (pending > 0) statement.executeBatch();
+                });
+            } catch (SQLException | RuntimeException e) {
+                statement.clearBatch();
+                throw e;
+            }
+        } catch (SQLException | IllegalStateException e) {
+            logger.log(Level.SEVERE, "Records from table: %s could not be deleted.".formatted(table.getName()));
+            throw new IllegalArgumentException("Records from table: %s could not be deleted.".formatted(table.getName()));
+        }
+    }
+
+    /**
+     * Inserts all records using a cached prepared statement,
+     * the rows are sent in chunks of the batch size within a single transaction.
+     * A single buffer is reused for every chunk
+     */
+    private void insert(Table table, Collection<? extends Record> records) {
+        try {
+            executeBatches(table.insertRecordQuery(), table.createBuffer(Math.min(batchSize, records.size())),
+                    records, table::prepareInsert);
         } catch (SQLException e) {
             logger.log(Level.SEVERE, "Records from table: %s could not be inserted.".formatted(table.getName()));
             throw new IllegalArgumentException("Records from table: %s could not be inserted.".formatted(table.getName()));
         }
     }
 
+    private void update(Table table, Collection<? extends Record> records) {
+        if (table.updateRecordQuery() == null) return;
+        try {
+            executeBatches(table.updateRecordQuery(), table.createUpdateBuffer(Math.min(batchSize, records.size())),
+                    records, table::prepareUpdate);
+        } catch (SQLException | IllegalStateException e) {
+            logger.log(Level.SEVERE, "Records from table: %s could not be updated.".formatted(table.getName()));
+            throw new IllegalArgumentException("Records from table: %s could not be updated.".formatted(table.getName()));
+        }
+    }
+
+    private void upsert(Table table, Collection<? extends Record> records) {
+        try {
+            executeBatches(table.upsertRecordQuery(), table.createBuffer(Math.min(batchSize, records.size())),
+                    records, table::prepareInsert);
+        } catch (SQLException | IllegalStateException e) {
+            logger.log(Level.SEVERE, "Records from table: %s could not be upserted.".formatted(table.getName()));
+            throw new IllegalArgumentException("Records from table: %s could not be upserted.".formatted(table.getName()));
+        }
+    }
+
+    /**
+     * Executes the cached statement for every record, in chunks of the batch size within a single transaction
+     * @param query the parameterized query with the columns of the buffer
+     * @param buffer the buffer that is reused for every chunk
+     * @param records the records to bind
+     * @param preparer adds a record as a row to the buffer
+     */
+    private void executeBatches(String query, RecordBuffer buffer, Collection<? extends Record> records,
+                                BiConsumer<RecordBuffer, Record> preparer) throws SQLException {
+        Iterator<? extends Record> iterator = records.iterator();
+        PreparedStatement statement = prepare(query);
+        try {
+            inTransaction(() -> {
+                while (iterator.hasNext()) {
+                    buffer.clear();
+                    while (iterator.hasNext() && !buffer.isFull()) {
+                        preparer.accept(buffer, iterator.next());
+                    }
+                    addBatch(statement, buffer);
+                    statement.executeBatch();
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            // The statement stays cached, rows of the failed batch should not be executed by the next call
+            statement.clearBatch();
+            throw e;
+        }
+    }
+
+    /**
+     * Binds every row of the buffer to the statement using the codecs of the columns and adds it to the batch of the statement
+     */
+    private void addBatch(PreparedStatement statement, RecordBuffer buffer) throws SQLException {
+        List<Column> columns = buffer.getColumns();
+        for (int row = 0; row < buffer.size(); row++) {
+            for (int column = 0; column < columns.size(); column++) {
+                TypeCodec<?> codec = columns.get(column).getCodec();
+                switch (buffer.getKind(column)) {
+                    case LONG -> codec.bindLong(statement, column + 1, buffer.getLong(column, row));
+                    case DOUBLE -> codec.bindDouble(statement, column + 1, buffer.getDouble(column, row));
+                    default -> {
+                        Object value = buffer.getObject(column, row);
+                        if (value == null) statement.setNull(column + 1, Types.NULL);
+                        else if (codec != null) codec.bindObject(statement, column + 1, value);
+                        else bind(statement, column + 1, value);
+                    }
+                }
+            }
+            statement.addBatch();
+        }
+    }
+
+    /**
+     * Should only be used while holding the write lock
+     * @param query the sql of the statement
+     * @return the cached statement of the writer connection, prepared on first use
+     */
+    private PreparedStatement prepare(String query) throws SQLException {
+        return pool.writerStatements().prepare(query);
+    }
+
+    /**
+     * Runs the action within a transaction, only commits if no transaction was active yet
+     * @throws SQLException after rolling back the changes of the action
+     */
+    private void inTransaction(SQLAction action) throws SQLException {
+        if (!con.getAutoCommit()) {
+            action.run();
+            return;
+        }
+        con.setAutoCommit(false);
+        try {
+            action.run();
+            con.commit();
+        } catch (SQLException | RuntimeException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Runs the action within the active transaction, the changes of the action are rolled back if it fails
+     * @throws SQLException after rolling back the changes of the action
+     */
+    private void inSavepoint(SQLAction action) throws SQLException {
+        Savepoint savepoint = con.setSavepoint();
+        try {
+            action.run();
+            con.releaseSavepoint(savepoint);
+        } catch (SQLException | RuntimeException e) {
+            con.rollback(savepoint);
+            throw e;
+        }
+    }
+
+    /**
+     * Binds the value using the codec of its type, values of unsupported types are bound as their String representation
+     */
+    private void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NULL);
+            return;
+        }
+        TypeCodec<?> codec = codecs.get(value.getClass());
+        if (codec != null) codec.bindObject(statement, index, value);
+        else statement.setString(index, value.toString());
+    }
+
+    private void bind(PreparedStatement statement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            bind(statement, i + 1, parameters.get(i));
+        }
+    }
+
+    private interface SQLAction {
+        void run() throws SQLException;
+    }
+
     /**
      * A raw method to execute sql statements,
      * be careful, issues may arise when used incorrectly
@@ -308,7 +1443,9 @@ public class SQLiteService implements DBService {
      */
     @Override
     public void exec(String query) throws SQLException {
-        con.createStatement().execute(query);
+        try (Statement statement = con.createStatement()) {
+            statement.execute(query);
+        }
     }
 
     /**
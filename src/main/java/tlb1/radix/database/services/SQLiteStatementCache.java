@@ -0,0 +1,137 @@
+package tlb1.radix.database.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The prepared statements of a single connection, every statement is compiled by SQLite only once.
+ * The least recently used statement is closed when the cache is full.
+ * The cache and its statements may only be used while holding the lock of the cache
+ */
+class SQLiteStatementCache implements AutoCloseable {
+    /**
+     * The maximum amount of cached statements per connection
+     */
+    static final int MAX_STATEMENTS = 256;
+
+    private final Connection connection;
+    private final ReentrantLock lock;
+    private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= MAX_STATEMENTS) return false;
+            try {
+                eldest.getValue().close();
+            } catch (SQLException ignored) {
+
+            }
+            return true;
+        }
+    };
+
+    /**
+     * @param connection the connection to prepare the statements on
+     * @param lock the lock that guards the connection
+     */
+    SQLiteStatementCache(Connection connection, ReentrantLock lock) {
+        this.connection = connection;
+        this.lock = lock;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Locks the connection for a result that stays open after the call that created it, like a cursor
+     */
+    void lock() {
+        lock.lock();
+    }
+
+    /**
+     * Releases the lock, only the thread that locked the connection can release it
+     */
+    void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * @param query the sql of the statement
+     * @return the cached statement of the query, prepared on first use
+     * @throws IllegalStateException if the current thread does not hold the lock of the cache
+     */
+    PreparedStatement prepare(String query) throws SQLException {
+        if (!lock.isHeldByCurrentThread()) throw new IllegalStateException("Statement cache should be locked");
+        PreparedStatement statement = statements.get(query);
+        if (statement != null) return statement;
+        statement = connection.prepareStatement(query);
+        statements.put(query, statement);
+        return statement;
+    }
+
+    /**
+     * Executes a cached query while holding the lock of the cache
+     * @param query the sql of the statement
+     * @param binder binds the parameters of the statement
+     * @param reader reads the result, the result is closed afterwards
+     * @return the value read from the result
+     */
+    <R> R query(String query, Binder binder, Reader<R> reader) throws SQLException {
+        lock.lock();
+        try {
+            PreparedStatement statement = prepare(query);
+            binder.bind(statement);
+            try (ResultSet result = statement.executeQuery()) {
+                return reader.read(result);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes an uncached statement while holding the lock of the cache
+     * @param sql the sql of the statement
+     */
+    void execute(String sql) throws SQLException {
+        lock.lock();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes all cached statements, the connection itself stays open
+     */
+    @Override
+    public void close() throws SQLException {
+        lock.lock();
+        try {
+            for (PreparedStatement statement : statements.values()) statement.close();
+            statements.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    interface Binder {
+        Binder NONE = statement -> { };
+
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface Reader<R> {
+        R read(ResultSet result) throws SQLException;
+    }
+}
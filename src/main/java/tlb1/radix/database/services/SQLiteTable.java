@@ -1,15 +1,18 @@
 package tlb1.radix.database.services;
 
 import tlb1.radix.database.Column;
+import tlb1.radix.database.ColumnAccessor;
+import tlb1.radix.database.FieldType;
 import tlb1.radix.database.FieldUsePredicate;
+import tlb1.radix.database.TypeCodecs;
 import tlb1.radix.database.records.Record;
 import tlb1.radix.database.annotations.Identifier;
+import tlb1.radix.database.annotations.Indexed;
+import tlb1.radix.database.annotations.ReadOnly;
 import tlb1.radix.database.annotations.Reference;
 import tlb1.radix.database.annotations.TableName;
-import tlb1.radix.database.records.RecordValueSet;
-import tlb1.radix.util.Multimap;
+import tlb1.radix.database.records.RecordBuffer;
 
-import java.lang.reflect.Field;
 import java.util.*;
 
 /**
@@ -27,37 +30,92 @@ public class SQLiteTable implements Table {
         return name;
     }
 
-    private final SQLiteColumnMapper columnMapper = new SQLiteColumnMapper();
+    private final SQLiteColumnMapper columnMapper;
 
     /**
      * Class type requires a class with a <b>@DBTableName</b> and one or more <b>@DBField</b>(s)
      */
     public final Class<? extends Record> type;
 
+    @Override
+    public Class<? extends Record> getType() {
+        return type;
+    }
+
     private final List<Column> columns;
+    private final Column identifier;
+    private final List<Column> updateColumns;
+
+    private final String createTableQuery;
+    private final String insertRecordQuery;
+    private final String selectTableQuery;
+    private final String selectFirstQuery;
+    private final String selectRecordQuery;
+    private final String rowRangeQuery;
+    private final String selectRowRangeQuery;
+    private final String countRecordsQuery;
+    private final String deleteRecordQuery;
+    private final String updateRecordQuery;
+    private final String upsertRecordQuery;
+    private final String identifierIndexQuery;
+    private final List<String> createIndexQueries;
+
+    private RecordMapper<?> recordMapper;
 
     /**
      * @param name of the database table in-context
      * @param type record model for the database table
      */
     public SQLiteTable(String name, Class<? extends Record> type) {
-        columns = computeColumns(FieldUsePredicate.DEFAULT_NONE);
-        this.name = name;
-        this.type = type;
+        this(name, type, FieldUsePredicate.DEFAULT_NONE, new TypeCodecs());
     }
 
     /**
      * @param type class to create a DB table for
      */
     public SQLiteTable(Class<? extends Record> type, FieldUsePredicate predicate) {
-        if(type.isAnnotationPresent(TableName.class)){
-            name = type.getAnnotation(TableName.class).value();
-        } else name = type.getSimpleName() + "s";
+        this(type, predicate, new TypeCodecs());
+    }
+
+    /**
+     * @param type class to create a DB table for
+     * @param codecs the codecs of the service, used to resolve the codec of every column
+     */
+    public SQLiteTable(Class<? extends Record> type, FieldUsePredicate predicate, TypeCodecs codecs) {
+        this(type.isAnnotationPresent(TableName.class) ? type.getAnnotation(TableName.class).value() : type.getSimpleName() + "s",
+                type, predicate, codecs);
+    }
+
+    /**
+     * Computes the columns and all sql statements of the table once
+     */
+    private SQLiteTable(String name, Class<? extends Record> type, FieldUsePredicate predicate, TypeCodecs codecs) {
+        this.name = name;
         this.type = type;
+        this.columnMapper = new SQLiteColumnMapper(codecs);
         columns = computeColumns(predicate);
         if(columns.isEmpty()){
             throw new IllegalArgumentException("Record type could not be assigned to a table");
         }
+        identifier = columns.stream().filter(column ->
+                column.getField().isAnnotationPresent(Identifier.class)).findFirst().orElse(null);
+        updateColumns = columns.stream().filter(column -> column != identifier
+                && !column.getField().isAnnotationPresent(ReadOnly.class)).toList();
+
+        createTableQuery = computeCreateTableQuery();
+        insertRecordQuery = computeInsertRecordQuery();
+        selectTableQuery = computeSelectTableQuery();
+        selectFirstQuery = selectTableQuery + " LIMIT 1";
+        selectRecordQuery = identifier == null ? null : "%s WHERE %s = ?".formatted(selectTableQuery, identifier.getName());
+        rowRangeQuery = "SELECT MIN(rowid), MAX(rowid) FROM %s".formatted(name);
+        selectRowRangeQuery = selectTableQuery + " WHERE rowid BETWEEN ? AND ?";
+        countRecordsQuery = "SELECT COUNT(*) FROM %s".formatted(name);
+        deleteRecordQuery = identifier == null ? null : "DELETE FROM %s WHERE %s = ?;".formatted(name, identifier.getName());
+        updateRecordQuery = identifier == null || updateColumns.isEmpty() ? null : computeUpdateRecordQuery();
+        upsertRecordQuery = identifier == null ? null : computeUpsertRecordQuery();
+        identifierIndexQuery = identifier == null ? null : "CREATE UNIQUE INDEX IF NOT EXISTS %s_%s_identifier ON %s (%s);"
+                .formatted(name, identifier.getName(), name, identifier.getName());
+        createIndexQueries = computeCreateIndexQueries();
     }
 
     private List<Column> computeColumns(FieldUsePredicate predicate){
@@ -70,22 +128,20 @@ public class SQLiteTable implements Table {
         return columns;
     }
 
+    @Override
+    public List<Column> getColumns() {
+        return columns;
+    }
+
     /**
-     * @param field the field you want to read
-     * @param record the in memory record
-     * @return null if the reference could not find a valid identifier
-     * @throws IllegalAccessException if the field does not have a public accessor
+     * The field plan is computed on first use, so tables of write-only types do not require a constructor
      */
-    private String getValue(Field field, Record record) throws IllegalAccessException {
-        if(!field.isAnnotationPresent(Reference.class)){
-            if(field.get(record) == null) return null;
-            return field.get(record).toString();
-        }
-
-        Optional<Field> key = columnMapper.getIdentifier(field.getType());
-
-        if(key.isPresent()) return key.get().get(field.get(record)).toString();
-        return null;
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> RecordMapper<T> getRecordMapper(Class<T> type) {
+        if (type != this.type) throw new IllegalArgumentException("Object should be of type " + this.type.getName());
+        if (recordMapper == null) recordMapper = new RecordMapper<>(type, columns);
+        return (RecordMapper<T>) recordMapper;
     }
 
     /**
@@ -94,51 +150,58 @@ public class SQLiteTable implements Table {
      */
     @Override
     public Column getIdentifier(){
-        return columns.stream().filter(column ->
-                        column.getField().isAnnotationPresent(Identifier.class)).findFirst()
-                .orElseThrow(()-> new IllegalStateException("Table should have an Identifier"));
+        if (identifier == null) throw new IllegalStateException("Table should have an Identifier");
+        return identifier;
     }
 
+    @Override
+    public boolean hasIdentifier() {
+        return identifier != null;
+    }
+
+    @Override
+    public RecordBuffer createBuffer(int capacity) {
+        return new RecordBuffer(columns, capacity);
+    }
+
+    /**
+     * @throws IllegalStateException if the table has no Identifier
+     */
+    @Override
+    public RecordBuffer createUpdateBuffer(int capacity) {
+        List<Column> bufferColumns = new ArrayList<>(updateColumns);
+        bufferColumns.add(getIdentifier());
+        return new RecordBuffer(bufferColumns, capacity);
+    }
 
     /**
      * Organises the Record data for use in a DB context
      */
     @Override
-    public RecordValueSet prepareInsert(Record r) {
-        if (r.getClass() != type) throw new IllegalArgumentException("Object should be of type " + type.getName());
-        Multimap<String, String> record = new Multimap<>();
-        columns.forEach(column -> {
-            try {
-                record.put(column.getName(), getValue(column.getField(), r));
-            } catch (Exception ignored) {
+    public void prepareInsert(RecordBuffer buffer, Record record) {
+        prepareRow(buffer, record);
+    }
 
-            }
-        });
-        return new RecordValueSet(record);
+    @Override
+    public void prepareUpdate(RecordBuffer buffer, Record record) {
+        prepareRow(buffer, record);
     }
+
     /**
-     * Organises the Record collection data for use in a DB context
+     * Adds the record as a row to the buffer, using the columns of the buffer
      */
-    @Override
-    public RecordValueSet prepareInsert(Collection<? extends Record> collection) {
-        if (collection.isEmpty()) return null;
-        for (Record record : collection) {
-            if (record.getClass() != type)
-                throw new IllegalArgumentException("Object should be of type " + type.getName());
-            break;
+    private void prepareRow(RecordBuffer buffer, Record record) {
+        if (record.getClass() != type) throw new IllegalArgumentException("Object should be of type " + type.getName());
+        List<Column> columns = buffer.getColumns();
+        int row = buffer.nextRow();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnAccessor accessor = columns.get(i).getAccessor();
+            switch (buffer.getKind(i)) {
+                case LONG -> buffer.setLong(i, row, accessor.getLong(record));
+                case DOUBLE -> buffer.setDouble(i, row, accessor.getDouble(record));
+                default -> buffer.setObject(i, row, accessor.get(record));
+            }
         }
-        Multimap<String, String> recordValues = new Multimap<>();
-        collection.forEach(r ->
-            columns.forEach(column -> {
-                try {
-                    recordValues.put(column.getName(), getValue(column.getField(), r));
-                } catch (IllegalAccessException ignored) {
-                   recordValues.put(column.getName(), "null");
-                }
-            })
-        );
-
-        return new RecordValueSet(recordValues);
     }
 
     /**
@@ -146,11 +209,15 @@ public class SQLiteTable implements Table {
      */
     @Override
     public String createTableQuery() {
-        StringBuilder query = new StringBuilder("CREATE TABLE ");
-        query.append(name).append(" (\n ");
-        columns.forEach(((column) -> query.append(column.getName()).append(" ").append(column.getType()).append(",\n ")));
-        query.replace(query.length() - 3, query.length() - 1, "\n);");
-        return query.toString();
+        return createTableQuery;
+    }
+
+    /**
+     * @return The parameterized sql query with the columns in the same order as the buffer
+     */
+    @Override
+    public String insertRecordQuery() {
+        return insertRecordQuery;
     }
 
     /**
@@ -158,21 +225,185 @@ public class SQLiteTable implements Table {
      */
     @Override
     public String selectTableQuery() {
-        StringBuilder query = new StringBuilder("SELECT ");
-        columns.forEach(((column) -> query.append(column.getName()).append(", ")));
-        query.replace(query.length() - 2, query.length() - 1, " FROM");
-        query.append(name);
-        return query.toString();
+        return selectTableQuery;
     }
 
     @Override
     public String selectTableQuery(long limit) {
-        return "%s LIMIT %s".formatted(selectTableQuery(), limit);
+        if (limit == 1) return selectFirstQuery;
+        return "%s LIMIT %s".formatted(selectTableQuery, limit);
+    }
+
+    @Override
+    public String rowRangeQuery() {
+        return rowRangeQuery;
+    }
+
+    @Override
+    public String selectRowRangeQuery() {
+        return selectRowRangeQuery;
+    }
+
+    @Override
+    public String countRecordsQuery() {
+        return countRecordsQuery;
     }
 
+    /**
+     * @throws IllegalStateException if the table has no Identifier
+     */
+    @Override
+    public String selectRecordQuery() {
+        if (selectRecordQuery == null) throw new IllegalStateException("Table should have an Identifier");
+        return selectRecordQuery;
+    }
+
+    /**
+     * @throws IllegalStateException if the table has no Identifier
+     */
+    @Override
+    public String selectRecordsQuery(int count) {
+        if (identifier == null) throw new IllegalStateException("Table should have an Identifier");
+        StringBuilder query = new StringBuilder(selectTableQuery);
+        query.append(" WHERE ").append(identifier.getName()).append(" IN (");
+        for (int i = 0; i < count; i++) query.append(i == 0 ? "?" : ", ?");
+        return query.append(")").toString();
+    }
+
+    /**
+     * @throws IllegalStateException if the table has no Identifier
+     */
     @Override
     public String deleteRecordQuery(){
-        return "DELETE FROM %s WHERE %s = ?;".formatted(getName(), columnMapper.getName(getIdentifier().getField()));
+        if (deleteRecordQuery == null) throw new IllegalStateException("Table should have an Identifier");
+        return deleteRecordQuery;
+    }
+
+    /**
+     * @return null if the table has no Identifier or all other columns are read-only
+     */
+    @Override
+    public String updateRecordQuery() {
+        return updateRecordQuery;
     }
 
+    /**
+     * @throws IllegalStateException if the table has no Identifier
+     */
+    @Override
+    public String upsertRecordQuery() {
+        if (upsertRecordQuery == null) throw new IllegalStateException("Table should have an Identifier");
+        return upsertRecordQuery;
+    }
+
+    /**
+     * @return the queries that create the indexes of the reference and @Indexed columns
+     */
+    @Override
+    public List<String> createIndexQueries() {
+        return createIndexQueries;
+    }
+
+    /**
+     * Tables created by this library use the identifier as primary key,
+     * the index is only needed for tables that were created without one
+     * @return the query that creates the unique index required for upserts, null if the table has no Identifier
+     */
+    @Override
+    public String identifierIndexQuery() {
+        return identifierIndexQuery;
+    }
+
+    private String computeUpdateRecordQuery() {
+        StringBuilder query = new StringBuilder("UPDATE ");
+        query.append(name).append(" SET ");
+        updateColumns.forEach(column -> query.append(column.getName()).append(" = ?, "));
+        query.replace(query.length() - 2, query.length(), " WHERE ");
+        query.append(identifier.getName()).append(" = ?;");
+        return query.toString();
+    }
+
+    private String computeUpsertRecordQuery() {
+        StringBuilder query = new StringBuilder(insertRecordQuery);
+        query.replace(query.length() - 1, query.length(), " ON CONFLICT (");
+        query.append(identifier.getName()).append(") DO ");
+        if (updateColumns.isEmpty()) return query.append("NOTHING;").toString();
+
+        query.append("UPDATE SET ");
+        updateColumns.forEach(column -> query.append(column.getName()).append(" = excluded.").append(column.getName()).append(", "));
+        query.replace(query.length() - 2, query.length(), ";");
+        return query.toString();
+    }
+
+    /**
+     * The identifier is declared as primary key, integral identifiers become an alias of the rowid
+     */
+    private String computeCreateTableQuery() {
+        StringBuilder query = new StringBuilder("CREATE TABLE ");
+        query.append(name).append(" (\n ");
+        columns.forEach(((column) -> {
+            query.append(column.getName()).append(" ");
+            if (column != identifier) query.append(column.getType());
+            else if (isIntegral(column.getType())) query.append("INTEGER PRIMARY KEY");
+            else query.append(column.getType()).append(" PRIMARY KEY");
+            query.append(",\n ");
+        }));
+        query.replace(query.length() - 3, query.length() - 1, "\n);");
+        return query.toString();
+    }
+
+    private static boolean isIntegral(FieldType type) {
+        return switch (type) {
+            case IDENTIFIER, LONG, INTEGER, SHORT, BYTE -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Reference columns get their own index, @Indexed columns with the same name share a composite index
+     */
+    private List<String> computeCreateIndexQueries() {
+        Map<String, List<Column>> indexes = new LinkedHashMap<>();
+        Set<String> uniqueIndexes = new HashSet<>();
+        for (Column column : columns) {
+            Indexed indexed = column.getField().getAnnotation(Indexed.class);
+            if (indexed != null) {
+                String indexName = indexed.value().isEmpty() ? column.getName() : indexed.value();
+                indexes.computeIfAbsent(indexName, key -> new ArrayList<>()).add(column);
+                if (indexed.unique()) uniqueIndexes.add(indexName);
+            } else if (column != identifier && column.getField().isAnnotationPresent(Reference.class)) {
+                indexes.computeIfAbsent(column.getName(), key -> new ArrayList<>()).add(column);
+            }
+        }
+
+        List<String> queries = new ArrayList<>();
+        indexes.forEach((indexName, indexColumns) -> {
+            StringBuilder query = new StringBuilder("CREATE ");
+            if (uniqueIndexes.contains(indexName)) query.append("UNIQUE ");
+            query.append("INDEX IF NOT EXISTS ").append(name).append("_").append(indexName).append("_index ON ")
+                    .append(name).append(" (");
+            indexColumns.forEach(column -> query.append(column.getName()).append(", "));
+            query.replace(query.length() - 2, query.length(), ");");
+            queries.add(query.toString());
+        });
+        return List.copyOf(queries);
+    }
+
+    private String computeInsertRecordQuery() {
+        StringBuilder query = new StringBuilder("INSERT INTO ");
+        query.append(name).append(" (");
+        columns.forEach(column -> query.append(column.getName()).append(", "));
+        query.replace(query.length() - 2, query.length(), ") VALUES (");
+        columns.forEach(column -> query.append("?, "));
+        query.replace(query.length() - 2, query.length(), ");");
+        return query.toString();
+    }
+
+    private String computeSelectTableQuery() {
+        StringBuilder query = new StringBuilder("SELECT ");
+        columns.forEach(((column) -> query.append(column.getName()).append(", ")));
+        query.replace(query.length() - 2, query.length() - 1, " FROM");
+        query.append(name);
+        return query.toString();
+    }
 }
@@ -0,0 +1,203 @@
+package tlb1.radix.database.services;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Executes the writes of many threads on a single writer thread.
+ * All writes that arrive within one flush interval are committed in a single transaction (group commit),
+ * every write runs in its own savepoint so a failing write does not roll back the others
+ */
+class SQLiteWriteQueue implements AutoCloseable {
+    /**
+     * The maximum amount of writes that are committed in a single transaction
+     */
+    static final int MAX_GROUP_SIZE = 10_000;
+
+    private final BlockingQueue<Write<?>> queue = new LinkedBlockingQueue<>();
+    private final Connection connection;
+    private final Lock writeLock;
+    private final long flushIntervalNanos;
+    private final Runnable afterCommit;
+    private final Runnable afterRollback;
+    private final Thread thread;
+    /**
+     * Guards the running state, so no write is queued after the final drain of {@link #close()}
+     */
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private volatile boolean running = true;
+
+    /**
+     * @param connection the writer connection
+     * @param writeLock the lock that guards the writer connection, it is held during every flush
+     * @param flushInterval the time writes are collected before they are committed
+     * @param afterCommit runs after a group is committed, while the write lock is held
+     * @param afterRollback runs after a group could not be committed, while the write lock is held
+     */
+    SQLiteWriteQueue(Connection connection, Lock writeLock, Duration flushInterval, Runnable afterCommit, Runnable afterRollback) {
+        this.connection = connection;
+        this.writeLock = writeLock;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.afterCommit = afterCommit;
+        this.afterRollback = afterRollback;
+        thread = new Thread(this::run, "radix-sqlite-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @param write the write to execute on the writer thread
+     * @return the future that completes after the transaction of the write is committed
+     */
+    <R> CompletableFuture<R> submit(Supplier<R> write) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        stateLock.lock();
+        try {
+            if (running) {
+                queue.add(new Write<>(write, future));
+                return future;
+            }
+        } finally {
+            stateLock.unlock();
+        }
+        future.completeExceptionally(new IllegalStateException("Write queue is closed"));
+        return future;
+    }
+
+    /**
+     * @return if the current thread is the writer thread
+     */
+    boolean isWriterThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    private void run() {
+        List<Write<?>> group = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Write<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                group.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (group.size() < MAX_GROUP_SIZE) {
+                    long remaining = deadline - System.nanoTime();
+                    Write<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                stop();
+            }
+            if (group.isEmpty()) continue;
+            flush(group);
+            group.clear();
+        }
+    }
+
+    /**
+     * The futures are completed after the writer connection is released,
+     * so their callbacks do not run within the transaction of the group
+     */
+    private void flush(List<Write<?>> group) {
+        SQLException failure = null;
+        writeLock.lock();
+        try {
+            connection.setAutoCommit(false);
+            for (Write<?> write : group) {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    write.execute();
+                    connection.releaseSavepoint(savepoint);
+                } catch (RuntimeException e) {
+                    connection.rollback(savepoint);
+                    write.failure = e;
+                }
+            }
+            connection.commit();
+            afterCommit.run();
+        } catch (SQLException e) {
+            failure = e;
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+
+            }
+            afterRollback.run();
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+
+            }
+            writeLock.unlock();
+        }
+
+        for (Write<?> write : group) {
+            if (failure == null) write.complete();
+            else write.fail(new IllegalStateException("Could not commit the write group", failure));
+        }
+    }
+
+    /**
+     * Stops accepting writes, the writes that are already queued are still committed
+     */
+    @Override
+    public void close() {
+        stop();
+        if (isWriterThread()) return;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Write<?> write;
+        while ((write = queue.poll()) != null) {
+            write.fail(new IllegalStateException("Write queue is closed"));
+        }
+    }
+
+    private void stop() {
+        stateLock.lock();
+        try {
+            running = false;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private static class Write<R> {
+        private final Supplier<R> write;
+        private final CompletableFuture<R> future;
+        private R result;
+        private RuntimeException failure;
+
+        private Write(Supplier<R> write, CompletableFuture<R> future) {
+            this.write = write;
+            this.future = future;
+        }
+
+        private void execute() {
+            result = write.get();
+        }
+
+        private void complete() {
+            if (failure != null) future.completeExceptionally(failure);
+            else future.complete(result);
+        }
+
+        private void fail(RuntimeException e) {
+            future.completeExceptionally(failure != null ? failure : e);
+        }
+    }
+}
@@ -2,11 +2,9 @@ package tlb1.radix.database.services;
 
 import tlb1.radix.database.Column;
 import tlb1.radix.database.records.Record;
-import tlb1.radix.database.records.RecordValueSet;
+import tlb1.radix.database.records.RecordBuffer;
 
-import java.lang.reflect.Field;
-import java.util.Collection;
-import java.util.Optional;
+import java.util.List;
 
 /**
  * The table interface that is used to interact with the real database table
@@ -18,24 +16,59 @@ public interface Table {
      */
     String getName();
 
+    /**
+     * @return the record type of this table
+     */
+    Class<? extends Record> getType();
+
+    /**
+     * @return the columns of this table, in the order of the insert query
+     */
+    List<Column> getColumns();
+
+    /**
+     * @param type the record type of this table
+     * @return the cached field plan used to map query results to records
+     * @throws IllegalArgumentException if the type is not the record type of this table
+     */
+    <T> RecordMapper<T> getRecordMapper(Class<T> type);
+
     /**
      * @return the identifier column of this table
+     * @throws IllegalStateException if the table has no Identifier
      */
     Column getIdentifier();
 
     /**
-     * Organises the Record data for use in a DB context
+     * @return true if the table has an identifier column
+     */
+    boolean hasIdentifier();
+
+    /**
+     * @param capacity the maximum amount of rows
+     * @return an empty buffer with the columns of this table, in the order of the insert query
+     */
+    RecordBuffer createBuffer(int capacity);
+
+    /**
+     * Organises the Record data for use in a DB context by adding it as a row to the buffer
+     * @param buffer a buffer created by this table
      * @param record the record to insert
-     * @return the set of keys with their values
      */
-    RecordValueSet prepareInsert(Record record);
+    void prepareInsert(RecordBuffer buffer, Record record);
 
     /**
-     * Organises the Record collection data for use in a DB context
-     * @param records the collection of records to insert
-     * @return the set of keys with their values
+     * @param capacity the maximum amount of rows
+     * @return an empty buffer with the columns of the update query, the identifier is the last column
      */
-    RecordValueSet prepareInsert(Collection<? extends Record> records);
+    RecordBuffer createUpdateBuffer(int capacity);
+
+    /**
+     * Organises the Record data for an update by adding it as a row to the buffer
+     * @param buffer a buffer created by {@link #createUpdateBuffer(int)}
+     * @param record the record to update
+     */
+    void prepareUpdate(RecordBuffer buffer, Record record);
 
     /**
      * Is used to generate a sql query to generate a table
@@ -43,6 +76,12 @@ public interface Table {
      */
     String createTableQuery();
 
+    /**
+     * Is used to generate a parameterized sql query to insert a single row
+     * @return The sql query as a String
+     */
+    String insertRecordQuery();
+
     /**
      * Is used to generate a sql query to select all rows
      * @return The sql query as a String
@@ -56,8 +95,56 @@ public interface Table {
      */
     String selectTableQuery(long limit);
 
+    /**
+     * @return the parameterized query that selects a single row by its identifier
+     */
+    String selectRecordQuery();
+
+    /**
+     * @param count the amount of identifier parameters
+     * @return the parameterized query that selects the rows of which the identifier is in the parameters
+     */
+    String selectRecordsQuery(int count);
+
+    /**
+     * @return the query that selects the lowest and highest rowid of the table
+     */
+    String rowRangeQuery();
+
+    /**
+     * @return the parameterized query that selects the rows of which the rowid is within an inclusive range
+     */
+    String selectRowRangeQuery();
+
+    /**
+     * @return the query to count all rows
+     */
+    String countRecordsQuery();
+
     /**
      * @return the query to delete a single record
      */
     String deleteRecordQuery();
+
+    /**
+     * Is used to generate a parameterized sql query that updates all writable columns of a single record
+     * @return The sql query as a String
+     */
+    String updateRecordQuery();
+
+    /**
+     * Is used to generate a parameterized sql query that inserts a record or updates it when the identifier exists
+     * @return The sql query as a String
+     */
+    String upsertRecordQuery();
+
+    /**
+     * @return the queries that create the indexes of this table
+     */
+    List<String> createIndexQueries();
+
+    /**
+     * @return the query that creates a unique index on the identifier column
+     */
+    String identifierIndexQuery();
 }
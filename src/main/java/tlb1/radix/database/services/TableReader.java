@@ -1,13 +1,6 @@
 package tlb1.radix.database.services;
 
-import tlb1.radix.database.FieldUsePredicate;
-
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.sql.Date;
 import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.*;
 
 import java.util.concurrent.Callable;
@@ -17,27 +10,6 @@ public class TableReader<T> implements Callable<List<T>> {
     private final Class<T> type;
     private final DBService connectedService;
 
-    static protected Map<Class<?>, Method> typeConversions;
-
-    static {
-        try {
-            typeConversions = new HashMap<>(Map.of(
-                    String.class,   ResultSet.class.getMethod("getString", String.class),
-                    Short.class,    ResultSet.class.getMethod("getShort", String.class),
-                    Integer.class,  ResultSet.class.getMethod("getInt", String.class),
-                    int.class,      ResultSet.class.getMethod("getInt", String.class),
-                    Long.class,     ResultSet.class.getMethod("getLong", String.class),
-                    Float.class,    ResultSet.class.getMethod("getFloat", String.class),
-                    Double.class,   ResultSet.class.getMethod("getDouble", String.class),
-                    Date.class,     ResultSet.class.getMethod("getDate", String.class),
-                    Boolean.class,  ResultSet.class.getMethod("getBoolean", String.class),
-                    Byte.class,     ResultSet.class.getMethod("getByte", String.class)
-            ));
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     public TableReader(Class<T> type, DBService service) {
         this.connectedService = service;
         this.type = type;
@@ -51,34 +23,20 @@ public class TableReader<T> implements Callable<List<T>> {
      */
     @Override
     public List<T> call() throws Exception {
-        ResultSet dataset = connectedService.retrieveAll(type);
-        List<T> records = new ArrayList<>();
+        Table table = connectedService.getTable(type);
+        if (table == null) throw new IllegalStateException("No table is registered for type " + type.getName());
+        RecordMapper<T> mapper = table.getRecordMapper(type);
 
-        while(dataset.next()){
-            T record = type.getConstructor().newInstance();
-            FieldUsePredicate predicate = FieldUsePredicate.DEFAULT_ALL;
-            Arrays.stream(type.getFields()).filter(predicate::shouldUse).forEach((field -> {
-                try {
-                    setField(record, field, dataset);
-                } catch (InvocationTargetException e) {
-                    e.printStackTrace();
-                   throw new IllegalStateException("Target method cannot be invoked");
-                } catch (IllegalAccessException | SQLException e) {
-                    throw new IllegalStateException("Cannot access all fields of target class");
-                }
-            }));
-            records.add(record);
+        ResultSet dataset = connectedService.retrieveAll(type);
+        try {
+            RowMapper<T> rowMapper = mapper.bind(dataset.getMetaData());
+            List<T> records = new ArrayList<>();
+            while (dataset.next()) {
+                records.add(rowMapper.map(dataset));
+            }
+            return records;
+        } finally {
+            dataset.getStatement().close();
         }
-
-        return records;
-    }
-
-    /**
-     * @throws IllegalAccessException If the accessor isn't public
-     * @throws InvocationTargetException If the underlying method throws an SQLException
-     */
-    public void setField(T record, Field field, ResultSet dataSet) throws InvocationTargetException, IllegalAccessException, SQLException {
-        if(field.getType().equals(UUID.class)) field.set(record, UUID.fromString(dataSet.getString(field.getName())));
-        else field.set(record, typeConversions.get(field.getType()).invoke(dataSet, field.getName()));
     }
 }
@@ -0,0 +1,151 @@
+package tlb1.radix.database.services;
+
+import tlb1.radix.database.annotations.Reference;
+import tlb1.radix.database.records.Record;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Collects inserts, updates and deletes of multiple record types and writes them in a single transaction.
+ * The records of every type are written as one batch, the types are ordered by their references:
+ * inserts and updates write referred types first, deletes write referring types first.
+ * A unit of work is not thread-safe and can be reused after it is committed
+ */
+public class UnitOfWork {
+    private final DBService service;
+    private final Map<Class<?>, List<Record>> inserts = new LinkedHashMap<>();
+    private final Map<Class<?>, List<Record>> updates = new LinkedHashMap<>();
+    private final Map<Class<?>, List<Record>> deletes = new LinkedHashMap<>();
+
+    /**
+     * @param service the service to write the changes to
+     */
+    public UnitOfWork(DBService service) {
+        this.service = service;
+    }
+
+    /**
+     * @param record the record to insert on commit
+     * @return this unit of work
+     */
+    public UnitOfWork insert(Record record) {
+        return add(inserts, record);
+    }
+
+    /**
+     * @param records the records to insert on commit
+     * @return this unit of work
+     */
+    public UnitOfWork insert(Collection<? extends Record> records) {
+        records.forEach(this::insert);
+        return this;
+    }
+
+    /**
+     * @param record the record to update on commit
+     * @return this unit of work
+     */
+    public UnitOfWork update(Record record) {
+        return add(updates, record);
+    }
+
+    /**
+     * @param records the records to update on commit
+     * @return this unit of work
+     */
+    public UnitOfWork update(Collection<? extends Record> records) {
+        records.forEach(this::update);
+        return this;
+    }
+
+    /**
+     * @param record the record to delete on commit
+     * @return this unit of work
+     */
+    public UnitOfWork delete(Record record) {
+        return add(deletes, record);
+    }
+
+    /**
+     * @param records the records to delete on commit
+     * @return this unit of work
+     */
+    public UnitOfWork delete(Collection<? extends Record> records) {
+        records.forEach(this::delete);
+        return this;
+    }
+
+    /**
+     * @return true if there are no pending changes
+     */
+    public boolean isEmpty() {
+        return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty();
+    }
+
+    /**
+     * Discards all pending changes
+     */
+    public void clear() {
+        inserts.clear();
+        updates.clear();
+        deletes.clear();
+    }
+
+    /**
+     * Writes all pending changes in a single transaction, the pending changes are discarded once they are committed
+     * @throws RuntimeException if a change could not be written, nothing is written and the changes stay pending
+     */
+    public void commit() {
+        if (isEmpty()) return;
+        Set<Class<?>> types = new LinkedHashSet<>(inserts.keySet());
+        types.addAll(updates.keySet());
+        types.addAll(deletes.keySet());
+        List<Class<?>> order = referredFirst(types);
+        List<Class<?>> reversed = new ArrayList<>(order);
+        Collections.reverse(reversed);
+
+        service.inTransaction(transaction -> {
+            for (Class<?> type : order) {
+                List<Record> records = inserts.get(type);
+                if (records != null) transaction.insert(records);
+            }
+            for (Class<?> type : order) {
+                List<Record> records = updates.get(type);
+                if (records != null) transaction.update(records);
+            }
+            for (Class<?> type : reversed) {
+                List<Record> records = deletes.get(type);
+                if (records != null) transaction.delete(records);
+            }
+        });
+        clear();
+    }
+
+    private UnitOfWork add(Map<Class<?>, List<Record>> changes, Record record) {
+        if (record == null) throw new IllegalArgumentException("Record should not be null");
+        changes.computeIfAbsent(record.getClass(), type -> new ArrayList<>()).add(record);
+        return this;
+    }
+
+    /**
+     * Orders the types so every type comes after the types it refers to, cyclic references keep the order they were added in
+     */
+    private static List<Class<?>> referredFirst(Set<Class<?>> types) {
+        List<Class<?>> order = new ArrayList<>(types.size());
+        Set<Class<?>> visited = new HashSet<>();
+        for (Class<?> type : types) {
+            visit(type, types, visited, order);
+        }
+        return order;
+    }
+
+    private static void visit(Class<?> type, Set<Class<?>> types, Set<Class<?>> visited, List<Class<?>> order) {
+        if (!visited.add(type)) return;
+        for (Field field : type.getFields()) {
+            if (!field.isAnnotationPresent(Reference.class)) continue;
+            if (types.contains(field.getType())) visit(field.getType(), types, visited, order);
+        }
+        order.add(type);
+    }
+}
@@ -0,0 +1,175 @@
+package tlb1.radix.util;
+
+import java.util.Arrays;
+
+/**
+ * An object that maps primitive int keys to values without boxing the keys.
+ * The entries are stored in two arrays using open addressing with linear probing,
+ * null values are not permitted
+ * @param <V> The type of value
+ */
+public class IntObjectMap<V> {
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    /**
+     * The default constructor
+     */
+    public IntObjectMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize the amount of entries the map can contain without resizing
+     */
+    public IntObjectMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or null if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped,
+     * or null if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) return (V) values[i];
+        }
+        return null;
+    }
+
+    /**
+     * @param key  key whose presence in this map is to be tested
+     * @return true if this map contains a mapping for the specified key
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map
+     * @param key the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key, not null
+     * @return the previous value associated with the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("Value should not be null");
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] != key) continue;
+            V previous = (V) values[i];
+            values[i] = value;
+            return previous;
+        }
+        if (size == resizeThreshold) {
+            resize();
+            return put(key, value);
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] != key) continue;
+            V previous = (V) values[i];
+            shiftBack(i);
+            size--;
+            return previous;
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the mappings from this map, the capacity is kept
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Closes the gap of a removed entry by moving back the entries of the same probe sequence,
+     * so lookups do not need tombstones
+     */
+    private void shiftBack(int gap) {
+        for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = slot(keys[i]);
+            // The entry may only move back if its home slot is not between the gap and its current slot
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void resize() {
+        if (keys.length == MAXIMUM_CAPACITY) throw new IllegalStateException("Map should not exceed its maximum capacity");
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = slot(oldKeys[i]);
+            while (values[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity == MAXIMUM_CAPACITY ? capacity - 1 : capacity / 4 * 3;
+    }
+
+    /**
+     * @return the smallest power of two that fits the expected size within the load factor of 0.75
+     */
+    private static int capacityFor(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Expected size should not be negative");
+        long capacity = Math.max(16, ((long) expectedSize * 4 + 2) / 3);
+        if (capacity >= MAXIMUM_CAPACITY) return MAXIMUM_CAPACITY;
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+}
@@ -0,0 +1,84 @@
+package database;
+
+import database.records.TestRecord;
+import org.junit.jupiter.api.Test;
+import tlb1.radix.database.ColumnAccessor;
+
+import java.lang.reflect.Field;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnAccessorTest {
+
+    public static class Sample {
+        public long id = 4;
+        public short small = -4;
+        public float ratio = 0.5f;
+        public boolean active = true;
+        public UUID token = UUID.randomUUID();
+        public TestRecord test = new TestRecord(1);
+    }
+
+    @Test
+    void integralPrimitivesAreNotBoxed() throws NoSuchFieldException {
+        Sample record = new Sample();
+        ColumnAccessor id = ColumnAccessor.of(Sample.class.getField("id"));
+        ColumnAccessor small = ColumnAccessor.of(Sample.class.getField("small"));
+
+        assertEquals(4, id.getLong(record));
+        assertEquals(-4, small.getLong(record));
+        id.setLong(record, Long.MAX_VALUE);
+        small.setLong(record, Short.MIN_VALUE);
+        assertEquals(Long.MAX_VALUE, record.id);
+        assertEquals(Short.MIN_VALUE, record.small);
+        assertEquals(Long.MAX_VALUE, id.get(record));
+    }
+
+    @Test
+    void booleansAreReadAsBits() throws NoSuchFieldException {
+        Sample record = new Sample();
+        ColumnAccessor active = ColumnAccessor.of(Sample.class.getField("active"));
+
+        assertEquals(1, active.getLong(record));
+        active.setLong(record, 0);
+        assertFalse(record.active);
+        active.setLong(record, 1);
+        assertTrue(record.active);
+    }
+
+    @Test
+    void floatingPointPrimitivesAreNotBoxed() throws NoSuchFieldException {
+        Sample record = new Sample();
+        ColumnAccessor ratio = ColumnAccessor.of(Sample.class.getField("ratio"));
+
+        assertEquals(0.5, ratio.getDouble(record));
+        ratio.setDouble(record, 0.25);
+        assertEquals(0.25f, record.ratio);
+        assertThrows(IllegalStateException.class, () -> ratio.getLong(record));
+    }
+
+    @Test
+    void objectsAreReadAndWritten() throws NoSuchFieldException {
+        Sample record = new Sample();
+        ColumnAccessor token = ColumnAccessor.of(Sample.class.getField("token"));
+        UUID value = UUID.randomUUID();
+
+        token.set(record, value);
+        assertSame(value, token.get(record));
+        token.set(record, null);
+        assertNull(record.token);
+        assertThrows(IllegalStateException.class, () -> token.getLong(record));
+    }
+
+    @Test
+    void referencesReadTheReferredIdentifier() throws NoSuchFieldException {
+        Field field = Sample.class.getField("test");
+        ColumnAccessor reference = ColumnAccessor.reference(field, TestRecord.class.getField("id"));
+        Sample record = new Sample();
+
+        assertEquals(record.test.id, reference.get(record));
+        record.test = null;
+        assertNull(reference.get(record));
+    }
+}
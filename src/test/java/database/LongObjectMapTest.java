@@ -0,0 +1,90 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+import tlb1.radix.util.LongObjectMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectMapTest {
+
+    @Test
+    void putGetAndReplace() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(Long.MAX_VALUE, "max"));
+        assertEquals("zero", map.put(0, "nil"));
+
+        assertEquals(3, map.size());
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertEquals("nil", map.get(0));
+        assertEquals("max", map.get(Long.MAX_VALUE));
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(-1));
+    }
+
+    @Test
+    void nullValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectMap<>().put(1, null));
+    }
+
+    @Test
+    void removingKeepsCollidingKeysReachable() {
+        // 12 keys in 16 slots always form probe sequences, every removal has to shift the rest back
+        for (int removed = 0; removed < 12; removed++) {
+            LongObjectMap<Long> map = new LongObjectMap<>(12);
+            for (long key = 0; key < 12; key++) map.put(key << 32, key);
+
+            assertEquals((long) removed, map.remove((long) removed << 32));
+            assertNull(map.remove((long) removed << 32));
+            assertEquals(11, map.size());
+            for (long key = 0; key < 12; key++) {
+                assertEquals(key == removed ? null : key, map.get(key << 32));
+            }
+        }
+    }
+
+    @Test
+    void mapGrowsBeyondItsExpectedSize() {
+        LongObjectMap<Long> map = new LongObjectMap<>(0);
+        for (long key = 0; key < 10_000; key++) map.put(key * 31, key);
+
+        assertEquals(10_000, map.size());
+        for (long key = 0; key < 10_000; key++) assertEquals(key, map.get(key * 31));
+        assertNull(map.get(1));
+    }
+
+    @Test
+    void clearKeepsTheMapUsable() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        for (long key = 0; key < 100; key++) map.put(key, "value");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+        map.put(5, "five");
+        assertEquals("five", map.get(5));
+    }
+
+    @Test
+    void behavesLikeHashMap() {
+        Random random = new Random(42);
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // A small key range makes collisions, removals and reinsertions frequent
+            long key = random.nextInt(512) - 256;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+                case 1 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) assertEquals(entry.getValue(), map.get(entry.getKey()));
+    }
+}
@@ -0,0 +1,77 @@
+package database;
+
+import database.records.TypedTestRecord;
+import org.junit.jupiter.api.Test;
+import tlb1.radix.database.FieldUsePredicate;
+import tlb1.radix.database.ValueKind;
+import tlb1.radix.database.records.RecordBuffer;
+import tlb1.radix.database.services.SQLiteTable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordBufferTest {
+    private final SQLiteTable table = new SQLiteTable(TypedTestRecord.class, FieldUsePredicate.DEFAULT_NONE);
+
+    @Test
+    void kindsFollowColumnTypes() {
+        RecordBuffer buffer = table.createBuffer(4);
+        List<String> names = buffer.getColumns().stream().map(column -> column.getName()).toList();
+
+        assertEquals(ValueKind.LONG, buffer.getKind(names.indexOf("id")));
+        assertEquals(ValueKind.LONG, buffer.getKind(names.indexOf("active")));
+        assertEquals(ValueKind.DOUBLE, buffer.getKind(names.indexOf("score")));
+        assertEquals(ValueKind.OBJECT, buffer.getKind(names.indexOf("flagged")));
+        assertEquals(ValueKind.OBJECT, buffer.getKind(names.indexOf("token")));
+    }
+
+    @Test
+    void preparedRowsAreStoredPerKind() {
+        RecordBuffer buffer = table.createBuffer(4);
+        List<String> names = buffer.getColumns().stream().map(column -> column.getName()).toList();
+        TypedTestRecord record = new TypedTestRecord(6);
+        record.flagged = null;
+        table.prepareInsert(buffer, record);
+
+        assertEquals(1, buffer.size());
+        assertEquals(6, buffer.getLong(names.indexOf("id"), 0));
+        assertEquals(1, buffer.getLong(names.indexOf("active"), 0));
+        assertEquals(1.5, buffer.getDouble(names.indexOf("score"), 0));
+        assertNull(buffer.getObject(names.indexOf("flagged"), 0));
+        assertEquals(record.token, buffer.getObject(names.indexOf("token"), 0));
+    }
+
+    @Test
+    void fullBufferRejectsRows() {
+        RecordBuffer buffer = table.createBuffer(2);
+        table.prepareInsert(buffer, new TypedTestRecord(1));
+        table.prepareInsert(buffer, new TypedTestRecord(2));
+
+        assertTrue(buffer.isFull());
+        assertThrows(IllegalStateException.class, buffer::nextRow);
+    }
+
+    @Test
+    void clearReleasesObjectsForReuse() {
+        RecordBuffer buffer = table.createBuffer(2);
+        int token = buffer.getColumns().stream().map(column -> column.getName()).toList().indexOf("token");
+        table.prepareInsert(buffer, new TypedTestRecord(1));
+        table.prepareInsert(buffer, new TypedTestRecord(2));
+        buffer.clear();
+
+        assertTrue(buffer.isEmpty());
+        assertEquals(2, buffer.capacity());
+        assertNull(buffer.getObject(token, 0));
+        assertNull(buffer.getObject(token, 1));
+
+        TypedTestRecord record = new TypedTestRecord(3);
+        table.prepareInsert(buffer, record);
+        assertEquals(record.token, buffer.getObject(token, 0));
+    }
+
+    @Test
+    void capacityShouldBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> table.createBuffer(0));
+    }
+}
@@ -0,0 +1,114 @@
+package database;
+
+import database.records.IntIdTestRecord;
+import database.records.TypedTestRecord;
+import org.junit.jupiter.api.Test;
+import tlb1.radix.database.services.RecordCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordCacheTest {
+
+    @Test
+    void unboundedIntIdentifierTest() {
+        RecordCache<IntIdTestRecord> cache = new RecordCache<>(IntIdTestRecord.class);
+        List<IntIdTestRecord> records = new ArrayList<>();
+        for (int i = -50; i < 50; i++) records.add(new IntIdTestRecord(i));
+        records.forEach(cache::put);
+        assertEquals(100, cache.size());
+
+        assertSame(records.get(0), cache.getIfPresent(-50L));
+        assertSame(records.get(60), cache.getIfPresent(10));
+        assertSame(records.get(60), cache.getIfPresent((short) 10));
+        assertSame(records.get(60), cache.get(10L));
+        assertNull(cache.getIfPresent(50));
+        assertNull(cache.getIfPresent(1L << 32));
+        assertNull(cache.getIfPresent("10"));
+
+        cache.invalidate(10L);
+        assertNull(cache.getIfPresent(10));
+        assertEquals(99, cache.size());
+
+        // The loader receives the identifier boxed as an Integer
+        List<Object> loaded = new ArrayList<>();
+        cache.setLoader(id -> {
+            loaded.add(id);
+            return Optional.of(new IntIdTestRecord((Integer) id));
+        });
+        IntIdTestRecord record = cache.get(10L);
+        assertEquals(10, record.id);
+        assertSame(record, cache.getIfPresent(10));
+        assertEquals(List.of(10), loaded);
+    }
+
+    @Test
+    void unboundedLongIdentifierTest() {
+        RecordCache<TypedTestRecord> cache = new RecordCache<>(TypedTestRecord.class);
+        TypedTestRecord small = new TypedTestRecord(7);
+        TypedTestRecord large = new TypedTestRecord(1L << 40);
+        cache.put(small);
+        cache.put(large);
+
+        assertSame(small, cache.getIfPresent(7));
+        assertSame(small, cache.get(7L));
+        assertSame(large, cache.getIfPresent(1L << 40));
+        assertSame(large, cache.getIfPresent((Object) (1L << 40)));
+        assertNull(cache.getIfPresent((int) (1L << 40)));
+
+        cache.invalidate(7);
+        assertNull(cache.getIfPresent(7L));
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertNull(cache.getIfPresent(1L << 40));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void boundedIntIdentifierTest() {
+        RecordCache<IntIdTestRecord> cache = new RecordCache<>(IntIdTestRecord.class, 2);
+        IntIdTestRecord first = new IntIdTestRecord(1);
+        IntIdTestRecord second = new IntIdTestRecord(2);
+        cache.put(first);
+        cache.put(second);
+
+        // Primitive lookups are boxed as the identifier type, a Long key would never match
+        assertSame(first, cache.getIfPresent(1L));
+        assertSame(second, cache.get(2L));
+        assertNull(cache.getIfPresent(1L << 32));
+
+        List<Object> loaded = new ArrayList<>();
+        cache.setLoader(id -> {
+            loaded.add(id);
+            return Optional.of(new IntIdTestRecord((Integer) id));
+        });
+        IntIdTestRecord third = cache.get(3L);
+        assertEquals(List.of(3), loaded);
+        assertSame(third, cache.getIfPresent(3L));
+        assertSame(third, cache.getIfPresent(3));
+
+        // The first record was used least recently
+        assertEquals(2, cache.size());
+        assertNull(cache.getIfPresent(1));
+        assertSame(second, cache.getIfPresent(2L));
+    }
+
+    @Test
+    void boundedLongIdentifierTest() {
+        RecordCache<TypedTestRecord> cache = new RecordCache<>(TypedTestRecord.class, 10);
+        TypedTestRecord record = new TypedTestRecord(5);
+        cache.put(record);
+
+        assertSame(record, cache.getIfPresent(5L));
+        assertSame(record, cache.getIfPresent(5));
+        assertSame(record, cache.get(5L));
+        assertSame(record, cache.get((byte) 5));
+
+        cache.invalidate(5);
+        assertNull(cache.getIfPresent(5L));
+        assertEquals(0, cache.size());
+    }
+}
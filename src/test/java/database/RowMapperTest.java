@@ -0,0 +1,81 @@
+package database;
+
+import database.records.TypedTestRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tlb1.radix.database.FieldUsePredicate;
+import tlb1.radix.database.services.RecordMapper;
+import tlb1.radix.database.services.RowMapper;
+import tlb1.radix.database.services.SQLiteTable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowMapperTest {
+    private final RecordMapper<TypedTestRecord> mapper =
+            new SQLiteTable(TypedTestRecord.class, FieldUsePredicate.DEFAULT_NONE).getRecordMapper(TypedTestRecord.class);
+    private Connection connection;
+
+    @BeforeEach
+    void openConnection() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @AfterEach
+    void closeConnection() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void columnsAreBoundByLabelInAnyOrder() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT 2.5 AS SCORE, 'ignored' AS extra, 1 AS Active, 7 AS id")) {
+            RowMapper<TypedTestRecord> rowMapper = mapper.bind(result.getMetaData());
+            assertTrue(result.next());
+            TypedTestRecord record = rowMapper.map(result);
+
+            assertEquals(7, record.id);
+            assertTrue(record.active);
+            assertEquals(2.5, record.score);
+        }
+    }
+
+    @Test
+    void missingColumnsKeepTheirDefaults() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT 3 AS id")) {
+            RowMapper<TypedTestRecord> rowMapper = mapper.bind(result.getMetaData());
+            assertTrue(result.next());
+            TypedTestRecord record = rowMapper.map(result);
+
+            assertEquals(3, record.id);
+            assertFalse(record.active);
+            assertNull(record.token);
+            assertNull(record.created);
+        }
+    }
+
+    @Test
+    void boundMapperIsReusedForEveryRow() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT 1 AS id, NULL AS flagged UNION ALL SELECT 2, 1 ORDER BY id")) {
+            RowMapper<TypedTestRecord> rowMapper = mapper.bind(result.getMetaData());
+            assertTrue(result.next());
+            TypedTestRecord first = rowMapper.map(result);
+            assertTrue(result.next());
+            TypedTestRecord second = rowMapper.map(result);
+
+            assertNotSame(first, second);
+            assertEquals(1, first.id);
+            assertNull(first.flagged);
+            assertEquals(2, second.id);
+            assertEquals(Boolean.TRUE, second.flagged);
+        }
+    }
+}
@@ -1,17 +1,49 @@
 package database;
 
+import database.records.CodecTestRecord;
+import database.records.IntIdTestRecord;
 import database.records.NotATestRecord;
+import database.records.ReadOnlyTestRecord;
+import database.records.ReferenceLogTestRecord;
+import database.records.ReferenceTestRecord;
 import database.records.TestRecord;
+import database.records.TypedTestRecord;
 import org.junit.jupiter.api.*;
+import tlb1.radix.database.Operator;
+import tlb1.radix.database.SortOrder;
 import tlb1.radix.database.TableRegistrationPredicate;
+import tlb1.radix.database.TypeCodecs;
+import tlb1.radix.database.services.AsyncDBService;
 import tlb1.radix.database.services.DBService;
+import tlb1.radix.database.services.RecordCache;
+import tlb1.radix.database.services.RecordCursor;
+import tlb1.radix.database.services.SQLiteProfile;
 import tlb1.radix.database.services.SQLiteService;
+import tlb1.radix.database.services.Table;
+import tlb1.radix.database.services.UnitOfWork;
 
+import java.io.File;
+import java.sql.Date;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -77,6 +109,68 @@ class SQLiteServiceTest {
         assertEquals(count, service.getRecordCount(TestRecord.class));
     }
 
+    @Test
+    void testInsertRecordsInBatches() {
+        int count = 95;
+        service.setBatchSize(10);
+        List<TestRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new TestRecord(i));
+        }
+        service.insert(records);
+
+        assertEquals(count, service.getRecordCount(TestRecord.class));
+        assertTrue(service.getRecords(TestRecord.class).containsAll(records));
+    }
+
+    @Test
+    void testInsertNullsAcrossBatches() {
+        service.setBatchSize(4);
+        service.registerTable(TypedTestRecord.class);
+        List<TypedTestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TypedTestRecord record = new TypedTestRecord(i);
+            if (i % 3 == 0) {
+                record.flagged = null;
+                record.created = null;
+                record.token = null;
+            }
+            records.add(record);
+        }
+        service.insert(records);
+        // The reused buffer should not leak values of the previous insert
+        TypedTestRecord last = new TypedTestRecord(10);
+        service.insert(List.of(last));
+        records.add(last);
+
+        List<TypedTestRecord> stored = new ArrayList<>(service.getRecords(TypedTestRecord.class));
+        stored.sort(Comparator.comparingLong(record -> record.id));
+        assertEquals(records, stored);
+    }
+
+    @Test
+    void testFailedBatchIsNotReplayed() throws SQLException {
+        service.registerTable(TestRecord.class);
+        service.exec("CREATE TRIGGER positive_tests BEFORE INSERT ON tests WHEN NEW.value < 0 " +
+                "BEGIN SELECT RAISE(ABORT, 'Negative values cannot be stored'); END;");
+        assertThrows(IllegalArgumentException.class, () ->
+                service.insert(List.of(new TestRecord(1), new TestRecord(-1))));
+
+        TestRecord record = new TestRecord(2);
+        service.insert(List.of(record));
+        assertEquals(List.of(record), service.getRecords(TestRecord.class));
+    }
+
+    @Test
+    void testInsertDuplicateIdentifier() {
+        service.registerTable(TestRecord.class);
+        TestRecord record = new TestRecord(1);
+        service.insert(record);
+
+        assertThrows(IllegalArgumentException.class, () -> service.insert(record));
+        assertEquals(1, service.getRecordCount(TestRecord.class));
+    }
+
     @Test
     void testDeleteRecord() {
         service.registerTable(TestRecord.class);
@@ -92,6 +186,20 @@ class SQLiteServiceTest {
         assertEquals(3, service.getRecordCount(TestRecord.class));
     }
 
+    @Test
+    void testDeleteRecords() {
+        service.registerTable(TestRecord.class);
+        List<TestRecord> records = List.of(new TestRecord(1), new TestRecord(2), new TestRecord(3), new TestRecord(4));
+        service.insert(records);
+
+        service.delete(records.subList(0, 2));
+        assertEquals(2, service.getRecordCount(TestRecord.class));
+
+        service.deleteByIds(TestRecord.class, List.of(records.get(2).id));
+        assertEquals(1, service.getRecordCount(TestRecord.class));
+        assertTrue(service.getRecords(TestRecord.class).contains(records.get(3)));
+    }
+
     @Test
     void testUpdateRecord() {
         service.registerTable(TestRecord.class);
@@ -112,6 +220,22 @@ class SQLiteServiceTest {
         assertTrue(service.getRecords(TestRecord.class).contains(record));
     }
 
+    @Test
+    void testUpsertRecords() {
+        service.registerTable(TestRecord.class);
+        TestRecord record = new TestRecord(1);
+        service.insert(record);
+
+        record.value = 2;
+        TestRecord newRecord = new TestRecord(3);
+        service.upsert(List.of(record, newRecord));
+
+        List<TestRecord> records = service.getRecords(TestRecord.class);
+        assertEquals(2, records.size());
+        assertTrue(records.contains(record));
+        assertTrue(records.contains(newRecord));
+    }
+
     @Test
     void testInsertRecordWithoutRegisteringTable() {
         service.insert(new TestRecord(10));
@@ -131,6 +255,372 @@ class SQLiteServiceTest {
     }
 
 
+    @Test
+    void streamRecordsTest() {
+        service.registerTable(TestRecord.class);
+        List<TestRecord> records = List.of(new TestRecord(1), new TestRecord(2), new TestRecord(3));
+        service.insert(records);
+
+        try (Stream<TestRecord> stream = service.stream(TestRecord.class)) {
+            assertTrue(stream.toList().containsAll(records));
+        }
+        try (Stream<TestRecord> stream = service.stream(TestRecord.class)) {
+            assertEquals(1, stream.limit(1).count());
+        }
+    }
+
+    @Test
+    void queryRecordsTest() {
+        service.registerTable(TestRecord.class);
+        List<TestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) records.add(new TestRecord(i));
+        service.insert(records);
+
+        List<TestRecord> result = service.query(TestRecord.class)
+                .where("value", Operator.GE, 5)
+                .orderBy("value", SortOrder.DESC)
+                .limit(3)
+                .list();
+
+        assertEquals(List.of(records.get(9), records.get(8), records.get(7)), result);
+        assertEquals(5, service.query(TestRecord.class).where("value", Operator.LT, 5).count());
+        assertEquals(2, service.query(TestRecord.class).where("value", Operator.IN, List.of(1, 2, 42)).count());
+        assertEquals(records.get(0), service.query(TestRecord.class).orderBy("value").first().orElseThrow());
+        assertThrows(IllegalArgumentException.class, () -> service.query(TestRecord.class).where("missing", Operator.EQ, 1));
+    }
+
+    @Test
+    void findByIdTest() {
+        service.registerTable(TestRecord.class);
+        List<TestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 300; i++) records.add(new TestRecord(i));
+        service.insert(records);
+
+        assertEquals(records.get(42), service.findById(TestRecord.class, records.get(42).id).orElseThrow());
+        assertTrue(service.findById(TestRecord.class, UUID.randomUUID()).isEmpty());
+
+        List<Object> ids = new ArrayList<>(records.stream().map(record -> record.id).toList());
+        ids.add(UUID.randomUUID());
+        ids.add(records.get(0).id);
+        List<TestRecord> found = service.findAllByIds(TestRecord.class, ids);
+        assertEquals(records.size(), found.size());
+        assertTrue(found.containsAll(records));
+    }
+
+    @Test
+    void cachedFindByIdTest() {
+        SQLiteService sqliteService = (SQLiteService) service;
+        sqliteService.registerTable(TestRecord.class);
+        RecordCache<TestRecord> cache = sqliteService.enableCache(TestRecord.class, 2);
+        List<TestRecord> records = List.of(new TestRecord(1), new TestRecord(2), new TestRecord(3));
+        service.insert(records);
+        assertEquals(2, cache.size());
+        assertSame(records.get(2), cache.getIfPresent(records.get(2).id));
+        assertNull(cache.getIfPresent(records.get(0).id));
+
+        // Misses are loaded from the database
+        TestRecord loaded = service.findById(TestRecord.class, records.get(0).id).orElseThrow();
+        assertEquals(records.get(0), loaded);
+        assertSame(loaded, cache.getIfPresent(records.get(0).id));
+
+        service.delete(records.get(0));
+        assertNull(cache.getIfPresent(records.get(0).id));
+        assertTrue(service.findById(TestRecord.class, records.get(0).id).isEmpty());
+    }
+
+    @Test
+    void cachedUpdateWithReadOnlyColumnTest() {
+        SQLiteService sqliteService = (SQLiteService) service;
+        sqliteService.registerTable(ReadOnlyTestRecord.class);
+        sqliteService.enableCache(ReadOnlyTestRecord.class, 10);
+        ReadOnlyTestRecord record = new ReadOnlyTestRecord(1, 1, 4);
+        service.insert(record);
+
+        // The read-only column is not written, the cache should not return the written object
+        record.value = 2;
+        record.created = 999;
+        service.update(record);
+        ReadOnlyTestRecord updated = service.findById(ReadOnlyTestRecord.class, 1L).orElseThrow();
+        assertNotSame(record, updated);
+        assertEquals(2, updated.value);
+        assertEquals(4, updated.created);
+
+        record.value = 3;
+        service.upsert(record);
+        ReadOnlyTestRecord upserted = service.findById(ReadOnlyTestRecord.class, 1L).orElseThrow();
+        assertEquals(3, upserted.value);
+        assertEquals(4, upserted.created);
+    }
+
+    @Test
+    void cachedWritesWaitForCommitTest() {
+        SQLiteService sqliteService = (SQLiteService) service;
+        sqliteService.registerTable(TestRecord.class);
+        RecordCache<TestRecord> cache = sqliteService.enableCache(TestRecord.class, 10);
+        TestRecord committed = new TestRecord(1);
+        TestRecord rolledBack = new TestRecord(2);
+
+        service.inTransaction(transaction -> {
+            transaction.insert(committed);
+            assertNull(cache.getIfPresent(committed.id));
+        });
+        assertSame(committed, cache.getIfPresent(committed.id));
+
+        assertThrows(IllegalStateException.class, () -> service.inTransaction(transaction -> {
+            transaction.insert(rolledBack);
+            transaction.delete(committed);
+            throw new IllegalStateException("Rollback");
+        }));
+        assertNull(cache.getIfPresent(rolledBack.id));
+        assertSame(committed, cache.getIfPresent(committed.id));
+
+        sqliteService.enableGroupCommit(Duration.ofMillis(5));
+        TestRecord queued = new TestRecord(3);
+        sqliteService.insertAsync(queued).join();
+        assertSame(queued, cache.getIfPresent(queued.id));
+    }
+
+    @Test
+    void cachedFindByIdWithOtherBoxedTypeTest() {
+        SQLiteService sqliteService = (SQLiteService) service;
+        sqliteService.registerTable(IntIdTestRecord.class);
+        RecordCache<IntIdTestRecord> cache = sqliteService.enableCache(IntIdTestRecord.class, 10);
+        IntIdTestRecord record = new IntIdTestRecord(5);
+        service.insert(record);
+        cache.clear();
+
+        // The identifier is an int, the record is looked up using a Long
+        IntIdTestRecord loaded = service.findById(IntIdTestRecord.class, 5L).orElseThrow();
+        assertEquals(record.name, loaded.name);
+        assertEquals(1, cache.size());
+        assertSame(loaded, cache.getIfPresent(5));
+        assertSame(loaded, service.findById(IntIdTestRecord.class, 5L).orElseThrow());
+        assertEquals(1, cache.size());
+
+        service.delete(loaded);
+        assertEquals(0, cache.size());
+        assertTrue(service.findById(IntIdTestRecord.class, 5L).isEmpty());
+        assertTrue(service.findById(IntIdTestRecord.class, 5).isEmpty());
+
+        service.insert(record);
+        assertNotNull(cache.get(5L));
+        service.deleteByIds(IntIdTestRecord.class, List.of(5L));
+        assertNull(cache.getIfPresent(5));
+        assertTrue(service.findById(IntIdTestRecord.class, (short) 5).isEmpty());
+    }
+
+    @Test
+    void resolveReferencesTest() {
+        SQLiteService sqliteService = (SQLiteService) service;
+        sqliteService.registerTable(TestRecord.class);
+        sqliteService.registerTable(ReferenceTestRecord.class);
+        TestRecord first = new TestRecord(1);
+        TestRecord second = new TestRecord(2);
+        service.insert(List.of(first, second));
+        service.insert(List.of(new ReferenceTestRecord(first), new ReferenceTestRecord(first),
+                new ReferenceTestRecord(second), new ReferenceTestRecord(null)));
+
+        assertTrue(service.getRecords(ReferenceTestRecord.class).stream().allMatch(record -> record.test == null));
+
+        sqliteService.setResolveReferences(true);
+        List<ReferenceTestRecord> records = service.getRecords(ReferenceTestRecord.class);
+        assertEquals(4, records.size());
+        List<TestRecord> referred = records.stream().map(record -> record.test).filter(Objects::nonNull).toList();
+        assertEquals(3, referred.size());
+        assertTrue(referred.containsAll(List.of(first, second)));
+        // Every referred row is mapped to a single instance
+        Set<TestRecord> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        instances.addAll(referred);
+        assertEquals(2, instances.size());
+    }
+
+    @Test
+    void transactionTest() {
+        service.registerTable(TestRecord.class);
+        service.inTransaction(transaction -> {
+            transaction.insert(new TestRecord(1));
+            transaction.insert(new TestRecord(2));
+        });
+        assertEquals(2, service.getRecordCount(TestRecord.class));
+
+        assertThrows(IllegalStateException.class, () -> service.inTransaction(transaction -> {
+            transaction.insert(new TestRecord(3));
+            throw new IllegalStateException("Rollback");
+        }));
+        assertEquals(2, service.getRecordCount(TestRecord.class));
+    }
+
+    @Test
+    void transactionReadsOwnWritesTest() throws SQLException {
+        eradicateService();
+        SQLiteService sqliteService = new SQLiteService(DB_NAME, 2);
+        service = sqliteService;
+        service.createConnection();
+        service.registerTable(TestRecord.class);
+        sqliteService.enableCache(TestRecord.class);
+        List<TestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) records.add(new TestRecord(i));
+        service.insert(records);
+        TestRecord record = new TestRecord(77);
+
+        service.inTransaction(transaction -> {
+            transaction.insert(record);
+            assertEquals(6, transaction.getRecordCount(TestRecord.class));
+            assertEquals(6, transaction.getRecords(TestRecord.class).size());
+            assertEquals(record, transaction.findById(TestRecord.class, record.id).orElseThrow());
+            assertEquals(List.of(record), transaction.findAllByIds(TestRecord.class, List.of(record.id)));
+            assertEquals(6, sqliteService.query(TestRecord.class).count());
+            assertEquals(6, sqliteService.getRecordsInParallel(TestRecord.class).size());
+
+            transaction.delete(records.get(0));
+            assertTrue(transaction.findById(TestRecord.class, records.get(0).id).isEmpty());
+            try (Stream<TestRecord> stream = transaction.stream(TestRecord.class)) {
+                assertEquals(5, stream.count());
+            }
+        });
+        assertEquals(5, service.getRecordCount(TestRecord.class));
+        assertSame(record, service.findById(TestRecord.class, record.id).orElseThrow());
+        assertTrue(service.findById(TestRecord.class, records.get(0).id).isEmpty());
+    }
+
+    @Test
+    void unitOfWorkTest() {
+        service.registerTable(TestRecord.class);
+        service.registerTable(ReferenceTestRecord.class);
+        TestRecord test = new TestRecord(1);
+        ReferenceTestRecord reference = new ReferenceTestRecord(test);
+
+        UnitOfWork unitOfWork = service.unitOfWork();
+        unitOfWork.insert(reference).insert(test).commit();
+        assertTrue(unitOfWork.isEmpty());
+        assertEquals(1, service.getRecordCount(TestRecord.class));
+        assertEquals(1, service.getRecordCount(ReferenceTestRecord.class));
+        ((SQLiteService) service).setResolveReferences(true);
+        assertEquals(test, service.getRecords(ReferenceTestRecord.class).get(0).test);
+
+        test.value = 2;
+        unitOfWork.delete(reference).update(test).commit();
+        assertEquals(0, service.getRecordCount(ReferenceTestRecord.class));
+        assertTrue(service.getRecords(TestRecord.class).contains(test));
+    }
+
+    @Test
+    void nativeStorageTest() throws SQLException {
+        service.registerTable(TypedTestRecord.class);
+        List<TypedTestRecord> records = List.of(new TypedTestRecord(1), new TypedTestRecord(2), new TypedTestRecord(3));
+        service.insert(records);
+
+        assertEquals(records, service.getRecords(TypedTestRecord.class));
+        assertEquals(records.get(1), service.findById(TypedTestRecord.class, 2L).orElseThrow());
+
+        ResultSet result = service.retrieveAll(TypedTestRecord.class);
+        try {
+            assertTrue(result.next());
+            assertTrue(result.getObject("token") instanceof byte[] bytes && bytes.length == 16);
+            assertTrue(result.getObject("active") instanceof Number);
+            assertTrue(result.getObject("flagged") instanceof Number);
+            assertEquals(1_700_000_000_001L, result.getLong("created"));
+        } finally {
+            result.getStatement().close();
+        }
+    }
+
+    @Test
+    void codecTest() throws SQLException {
+        SQLiteService sqliteService = (SQLiteService) service;
+        sqliteService.getCodecs().register(CodecTestRecord.Level.class, TypeCodecs.byOrdinal(CodecTestRecord.Level.class));
+        service.registerTable(CodecTestRecord.class);
+        List<CodecTestRecord> records = List.of(new CodecTestRecord(1), new CodecTestRecord(2), new CodecTestRecord(3));
+        service.insert(records);
+
+        assertEquals(records, service.getRecords(CodecTestRecord.class));
+        assertEquals(List.of(records.get(2)), service.query(CodecTestRecord.class)
+                .where("level", Operator.EQ, CodecTestRecord.Level.LOW).list());
+        assertEquals(List.of(records.get(1)), service.query(CodecTestRecord.class)
+                .where("day", Operator.EQ, records.get(1).day).list());
+
+        ResultSet result = service.retrieveAll(CodecTestRecord.class);
+        try {
+            assertTrue(result.next());
+            assertEquals(1, result.getLong("level"));
+            assertEquals(2, result.getLong("priority"));
+            assertEquals(1_700_000_000_001L, result.getLong("moment"));
+            assertEquals("12345678901234567891.12345", result.getString("amount"));
+        } finally {
+            result.getStatement().close();
+        }
+    }
+
+    @Test
+    void nullCharacterTest() throws SQLException {
+        SQLiteService sqliteService = (SQLiteService) service;
+        service.registerTable(CodecTestRecord.class);
+        service.insert(List.of(new CodecTestRecord(1), new CodecTestRecord(2)));
+        sqliteService.exec("UPDATE codec_tests SET letter = NULL WHERE id = 1");
+        sqliteService.exec("UPDATE codec_tests SET letter = '' WHERE id = 2");
+
+        // NULL and empty text cannot be stored in a primitive char, the field is left at its default value
+        List<CodecTestRecord> records = service.getRecords(CodecTestRecord.class);
+        assertEquals(2, records.size());
+        assertTrue(records.stream().allMatch(record -> record.letter == '\0'));
+    }
+
+    @Test
+    void legacyTextColumnsAreMigratedTest() throws SQLException {
+        SQLiteService sqliteService = (SQLiteService) service;
+        // The table and values as they were written before booleans, dates and UUIDs had a native storage class
+        sqliteService.exec("CREATE TABLE typed_tests (\n id BIGINT,\n active BOOL,\n flagged BOOL,\n created DATE,\n token VARCHAR(36),\n score DOUBLE\n);");
+        List<TypedTestRecord> records = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            TypedTestRecord record = new TypedTestRecord(i);
+            record.created = Date.valueOf("2023-11-1" + i);
+            records.add(record);
+            sqliteService.exec("INSERT INTO typed_tests (id, active, flagged, created, token, score) VALUES ('%s', '%s', '%s', '%s', '%s', '%s');"
+                    .formatted(record.id, record.active, record.flagged, record.created, record.token, record.score));
+        }
+
+        service.registerTable(TypedTestRecord.class);
+        assertEquals(records, service.getRecords(TypedTestRecord.class));
+        assertEquals(records.get(1), service.findById(TypedTestRecord.class, 2L).orElseThrow());
+        assertEquals(List.of(records.get(2)), service.query(TypedTestRecord.class)
+                .where("token", Operator.EQ, records.get(2).token).list());
+
+        records.get(1).active = !records.get(1).active;
+        service.update(records.get(1));
+        records.get(2).score = 7;
+        service.upsert(records.get(2));
+        service.delete(records.get(0));
+        assertEquals(records.subList(1, 3), service.getRecords(TypedTestRecord.class));
+
+        ResultSet result = service.retrieveAll(TypedTestRecord.class);
+        try {
+            assertTrue(result.next());
+            assertTrue(result.getObject("token") instanceof byte[]);
+            assertTrue(result.getObject("active") instanceof Number);
+            assertTrue(result.getObject("created") instanceof Number);
+        } finally {
+            result.getStatement().close();
+        }
+    }
+
+    @Test
+    void resolveReferencesWithoutIdentifierTest() {
+        SQLiteService sqliteService = (SQLiteService) service;
+        sqliteService.registerTable(TestRecord.class);
+        sqliteService.registerTable(ReferenceLogTestRecord.class);
+        TestRecord test = new TestRecord(1);
+        service.insert(test);
+        service.insert(List.of(new ReferenceLogTestRecord(test, "first"), new ReferenceLogTestRecord(test, "second")));
+
+        sqliteService.setResolveReferences(true);
+        List<ReferenceLogTestRecord> records = service.getRecords(ReferenceLogTestRecord.class);
+        assertEquals(List.of("first", "second"), records.stream().map(record -> record.message).toList());
+        assertEquals(test, records.get(0).test);
+        assertSame(records.get(0).test, records.get(1).test);
+
+        assertThrows(IllegalStateException.class, () -> sqliteService.enableCache(ReferenceLogTestRecord.class));
+    }
+
     @Test
     void testInsertRecordsWithoutRegisteringTable() {
         service.insert(List.of(
@@ -173,6 +663,33 @@ class SQLiteServiceTest {
         assertTrue(service.hasRecords(NotATestRecord.class));
     }
 
+    @Test
+    void testConcurrentFirstInsertsRegisterOnce() throws Exception {
+        eradicateService();
+        service = new SQLiteService(DB_NAME, true);
+        service.setLogLevel(Level.OFF);
+        assertFalse(service.tableExists(TypedTestRecord.class));
+        assertNull(service.getTable(TypedTestRecord.class));
+
+        int count = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Table>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TypedTestRecord record = new TypedTestRecord(i);
+            futures.add(executor.submit(() -> {
+                service.insert(record);
+                return service.getTable(TypedTestRecord.class);
+            }));
+        }
+        Set<Table> tables = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<Table> future : futures) tables.add(future.get());
+        executor.shutdown();
+
+        assertEquals(1, tables.size());
+        assertSame(tables.iterator().next(), service.getTable(TypedTestRecord.class));
+        assertEquals(count, service.getRecordCount(TypedTestRecord.class));
+    }
+
     @Test
     void testInsertRecordsWithMagic() throws SQLException {
         eradicateService();
@@ -189,4 +706,283 @@ class SQLiteServiceTest {
         assertTrue(service.tableExists(NotATestRecord.class));
         assertTrue(service.hasRecords(NotATestRecord.class));
     }
+
+    @Test
+    void testPooledReads() throws SQLException {
+        eradicateService();
+        service = new SQLiteService(DB_NAME, 2);
+        service.createConnection();
+        service.registerTable(TestRecord.class);
+
+        TestRecord record = new TestRecord(42);
+        service.insert(record);
+        service.insert(List.of(new TestRecord(1), new TestRecord(2)));
+
+        assertEquals(3, service.getRecordCount(TestRecord.class));
+        assertFalse(service.isTableEmpty(TestRecord.class));
+        assertTrue(service.getRecords(TestRecord.class).contains(record));
+    }
+
+    @Test
+    void testParallelReads() throws SQLException {
+        eradicateService();
+        SQLiteService sqliteService = new SQLiteService(DB_NAME, 4);
+        service = sqliteService;
+        service.createConnection();
+        service.registerTable(TestRecord.class);
+        assertTrue(sqliteService.getRecordsInParallel(TestRecord.class).isEmpty());
+
+        List<TestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) records.add(new TestRecord(i));
+        service.insert(records);
+
+        assertEquals(records, sqliteService.getRecordsInParallel(TestRecord.class));
+        try (Stream<TestRecord> stream = sqliteService.streamInParallel(TestRecord.class)) {
+            assertEquals(records.size(), stream.count());
+        }
+    }
+
+    @Test
+    void testParallelReadsOfExtremeIdentifiers() throws SQLException {
+        List<Long> ids = List.of(Long.MIN_VALUE, Long.MIN_VALUE + 10, -5L, 0L, Long.MAX_VALUE - 10, Long.MAX_VALUE);
+        List<ReadOnlyTestRecord> records = ids.stream().map(id -> new ReadOnlyTestRecord(id, 0, 0)).toList();
+        for (int readers : new int[]{2, 3, 4, 6, 8}) {
+            eradicateService();
+            SQLiteService sqliteService = new SQLiteService(DB_NAME, readers);
+            service = sqliteService;
+            service.createConnection();
+            service.registerTable(ReadOnlyTestRecord.class);
+            service.insert(records);
+
+            assertEquals(ids, sqliteService.getRecordsInParallel(ReadOnlyTestRecord.class).stream().map(record -> record.id).toList());
+            try (Stream<ReadOnlyTestRecord> stream = sqliteService.streamInParallel(ReadOnlyTestRecord.class)) {
+                assertEquals(ids, stream.map(record -> record.id).toList());
+            }
+        }
+    }
+
+    @Test
+    void testAsyncService() {
+        service.registerTable(TestRecord.class);
+        try (AsyncDBService async = new AsyncDBService(service, 2)) {
+            List<CompletableFuture<Void>> inserts = new ArrayList<>();
+            for (int i = 0; i < 10; i++) inserts.add(async.insert(new TestRecord(i)));
+            CompletableFuture.allOf(inserts.toArray(CompletableFuture[]::new)).join();
+
+            assertEquals(10, async.getRecordCount(TestRecord.class).join().longValue());
+            assertEquals(10, async.getRecords(TestRecord.class).join().size());
+        }
+    }
+
+    @Test
+    void testSwitchProfiles() throws SQLException {
+        eradicateService();
+        SQLiteService sqliteService = new SQLiteService(DB_NAME, 2);
+        service = sqliteService;
+        sqliteService.setProfile(SQLiteProfile.BALANCED);
+        service.createConnection();
+        service.registerTable(TestRecord.class);
+
+        sqliteService.setProfile(SQLiteProfile.BULK_LOAD);
+        List<TestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) records.add(new TestRecord(i));
+        service.insert(records);
+
+        sqliteService.setProfile(SQLiteProfile.READ_ONLY_ANALYTICS);
+        assertThrows(IllegalArgumentException.class, () -> service.insert(new TestRecord(1000)));
+        assertEquals(1000, service.getRecordCount(TestRecord.class));
+
+        sqliteService.setProfile(SQLiteProfile.DURABLE);
+        service.insert(new TestRecord(1000));
+        assertEquals(1001, service.getRecordCount(TestRecord.class));
+    }
+
+    @Test
+    void testMemoryBackupAndRestore() throws SQLException {
+        eradicateService();
+        SQLiteService memory = new SQLiteService(SQLiteService.MEMORY, 2);
+        service = memory;
+        service.createConnection();
+        service.registerTable(TestRecord.class);
+        assertEquals(0, memory.getReaderCount());
+
+        List<TestRecord> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) records.add(new TestRecord(i));
+        service.insert(records);
+
+        File backup = new File("memory-backup.db");
+        memory.backup(backup.getPath());
+        memory.eradicate();
+
+        memory = new SQLiteService(SQLiteService.MEMORY);
+        service = memory;
+        service.createConnection();
+        memory.setMmapSize(1L << 20);
+        memory.restore(backup.getPath());
+        service.registerTable(TestRecord.class);
+        assertEquals(100, service.getRecordCount(TestRecord.class));
+        assertTrue(backup.delete());
+    }
+
+    @Test
+    void testBackupToPathWithQuotes() throws SQLException {
+        service.registerTable(TestRecord.class);
+        service.insert(List.of(new TestRecord(1), new TestRecord(2)));
+        File backup = new File("quoted \" backup'.db");
+        SQLiteService sqliteService = (SQLiteService) service;
+        sqliteService.backup(backup.getPath());
+        service.insert(new TestRecord(3));
+
+        sqliteService.restore(backup.getPath());
+        assertTrue(backup.delete());
+        assertEquals(2, service.getRecordCount(TestRecord.class));
+        assertThrows(IllegalStateException.class, () -> sqliteService.restore(backup.getPath()));
+    }
+
+    @Test
+    void testRestoreCreatesMissingRegisteredTables() throws SQLException {
+        SQLiteService memory = new SQLiteService(SQLiteService.MEMORY);
+        memory.createConnection();
+        memory.registerTable(TestRecord.class);
+        memory.insert(List.of(new TestRecord(1), new TestRecord(2)));
+        File backup = new File("partial-backup.db");
+        memory.backup(backup.getPath());
+        memory.eradicate();
+
+        // The backup does not contain the table of the int identifier records
+        SQLiteService sqliteService = (SQLiteService) service;
+        sqliteService.registerTable(TestRecord.class);
+        sqliteService.registerTable(IntIdTestRecord.class);
+        sqliteService.enableCache(IntIdTestRecord.class);
+        IntIdTestRecord record = new IntIdTestRecord(1);
+        service.insert(record);
+        sqliteService.restore(backup.getPath());
+        assertTrue(backup.delete());
+
+        assertEquals(2, service.getRecordCount(TestRecord.class));
+        assertEquals(0, service.getRecordCount(IntIdTestRecord.class));
+        assertTrue(service.findById(IntIdTestRecord.class, 1).isEmpty());
+        service.insert(record);
+        assertEquals(List.of(record.name), service.getRecords(IntIdTestRecord.class).stream().map(loaded -> loaded.name).toList());
+    }
+
+    @Test
+    void testRawResultLocksSharedConnection() throws Exception {
+        service.registerTable(TestRecord.class);
+        service.insert(new TestRecord(1));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ResultSet result = service.retrieveAll(TestRecord.class);
+            assertTrue(result.next());
+            Future<?> write = executor.submit(() -> service.insert(new TestRecord(2)));
+            assertThrows(TimeoutException.class, () -> write.get(200, TimeUnit.MILLISECONDS));
+
+            result.getStatement().close();
+            write.get(5, TimeUnit.SECONDS);
+            assertEquals(2, service.getRecordCount(TestRecord.class));
+
+            // Closing only the result releases the connection as well
+            result = service.retrieveAll(TestRecord.class);
+            result.close();
+            executor.submit(() -> service.insert(new TestRecord(3))).get(5, TimeUnit.SECONDS);
+            result.getStatement().close();
+            assertEquals(3, service.getRecordCount(TestRecord.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testCursorLocksSharedConnection() throws Exception {
+        service.registerTable(TestRecord.class);
+        service.insert(List.of(new TestRecord(1), new TestRecord(2)));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (RecordCursor<TestRecord> cursor = service.cursor(TestRecord.class)) {
+            assertTrue(cursor.hasNext());
+            Future<?> write = executor.submit(() -> service.insert(new TestRecord(3)));
+            assertThrows(TimeoutException.class, () -> write.get(200, TimeUnit.MILLISECONDS));
+
+            cursor.close();
+            write.get(5, TimeUnit.SECONDS);
+            assertEquals(3, service.getRecordCount(TestRecord.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testWriteWhileReadingCursorWithGroupCommit() {
+        service.registerTable(TestRecord.class);
+        service.registerTable(TypedTestRecord.class);
+        service.insert(List.of(new TestRecord(1), new TestRecord(2)));
+        ((SQLiteService) service).enableGroupCommit(Duration.ofMillis(5));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            try (Stream<TestRecord> records = service.stream(TestRecord.class)) {
+                records.forEach(record -> service.insert(new TypedTestRecord(record.value)));
+            }
+        });
+        assertEquals(2, service.getRecordCount(TypedTestRecord.class));
+    }
+
+    @Test
+    void testConcurrentInsertsWithGroupCommit() throws Exception {
+        int count = 200;
+        service.registerTable(TestRecord.class);
+        ((SQLiteService) service).enableGroupCommit(Duration.ofMillis(5));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TestRecord record = new TestRecord(i);
+            futures.add(executor.submit(() -> service.insert(record)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(count, service.getRecordCount(TestRecord.class));
+    }
+
+    @Test
+    void testDisableGroupCommitCompletesEveryWrite() throws Exception {
+        SQLiteService sqliteService = (SQLiteService) service;
+        service.registerTable(TestRecord.class);
+        sqliteService.enableGroupCommit(Duration.ofMillis(1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<CompletableFuture<Void>>> submits = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            TestRecord record = new TestRecord(i);
+            submits.add(executor.submit(() -> sqliteService.insertAsync(record)));
+            if (i == 200) sqliteService.disableGroupCommit();
+        }
+        executor.shutdown();
+
+        // Writes that are submitted while the queue closes are either committed or rejected
+        long committed = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            long completed = 0;
+            for (Future<CompletableFuture<Void>> submit : submits) {
+                if (!submit.get().handle((result, e) -> e == null).join()) continue;
+                completed++;
+            }
+            return completed;
+        });
+        assertEquals(committed, service.getRecordCount(TestRecord.class));
+    }
+
+    @Test
+    void testWriteCallbacksRunAfterTheWriterIsReleased() {
+        SQLiteService sqliteService = (SQLiteService) service;
+        service.registerTable(TestRecord.class);
+        sqliteService.enableGroupCommit(Duration.ofMillis(50));
+
+        // Without reader connections the read of another thread waits for the writer connection
+        CompletableFuture<Long> count = sqliteService.insertAsync(new TestRecord(1)).thenApply(ignored ->
+                CompletableFuture.supplyAsync(() -> service.getRecordCount(TestRecord.class)).join());
+        assertEquals(1, assertTimeoutPreemptively(Duration.ofSeconds(5), () -> count.join()));
+    }
 }
@@ -0,0 +1,71 @@
+package database;
+
+import database.records.TestRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tlb1.radix.database.Operator;
+import tlb1.radix.database.services.SQLiteService;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SQLiteStatementCacheTest {
+    private static final String DB_NAME = "test.db";
+
+    private SQLiteService service;
+    private final List<TestRecord> records = new ArrayList<>();
+
+    @BeforeEach
+    void resetService() throws SQLException {
+        service = new SQLiteService(DB_NAME);
+        service.createConnection();
+        service.setLogLevel(Level.OFF);
+        service.registerTable(TestRecord.class);
+        for (int i = 0; i < 300; i++) records.add(new TestRecord(i));
+        service.insert(records);
+    }
+
+    @AfterEach
+    void eradicateService() throws SQLException {
+        service.eradicate();
+    }
+
+    @Test
+    void cachedStatementsAreBoundAgain() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(List.of(records.get(i)), service.query(TestRecord.class).where("value", Operator.EQ, i).list());
+        }
+        assertEquals(300, service.getRecordCount(TestRecord.class));
+        assertEquals(300, service.getRecordCount(TestRecord.class));
+    }
+
+    @Test
+    void evictedStatementsArePreparedAgain() {
+        // Every amount of values is a distinct query, more than the statement cache of a connection holds
+        for (int round = 0; round < 2; round++) {
+            for (int count = 1; count <= 300; count++) {
+                List<Integer> values = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) values.add(i);
+                assertEquals(count, service.query(TestRecord.class).where("value", Operator.IN, values).list().size());
+            }
+        }
+        assertEquals(records.subList(0, 3), service.query(TestRecord.class)
+                .where("value", Operator.IN, List.of(0, 1, 2)).orderBy("value").list());
+    }
+
+    @Test
+    void writesReuseTheirStatements() {
+        for (TestRecord record : records.subList(0, 50)) {
+            record.value += 1000;
+            service.update(record);
+        }
+        service.delete(records.subList(50, 100));
+        assertEquals(250, service.getRecordCount(TestRecord.class));
+        assertEquals(50, service.query(TestRecord.class).where("value", Operator.GE, 1000).count());
+    }
+}
@@ -0,0 +1,29 @@
+package database;
+
+import database.records.TestRecord;
+import org.junit.jupiter.api.Test;
+import tlb1.radix.database.FieldUsePredicate;
+import tlb1.radix.database.services.SQLiteTable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SQLiteTableTest {
+    private final SQLiteTable table = new SQLiteTable(TestRecord.class, FieldUsePredicate.DEFAULT_NONE);
+
+    @Test
+    void queriesAreComputedOnce() {
+        assertSame(table.selectTableQuery(), table.selectTableQuery());
+        assertSame(table.insertRecordQuery(), table.insertRecordQuery());
+        assertSame(table.deleteRecordQuery(), table.deleteRecordQuery());
+        assertSame(table.selectTableQuery(1), table.selectTableQuery(1));
+    }
+
+    @Test
+    void queriesUseTheColumnsOfTheTable() {
+        assertEquals("SELECT id, value FROM tests", table.selectTableQuery());
+        assertEquals("SELECT id, value FROM tests LIMIT 1", table.selectTableQuery(1));
+        assertEquals("INSERT INTO tests (id, value) VALUES (?, ?);", table.insertRecordQuery());
+        assertEquals("DELETE FROM tests WHERE id = ?;", table.deleteRecordQuery());
+        assertEquals("SELECT COUNT(*) FROM tests", table.countRecordsQuery());
+    }
+}
@@ -0,0 +1,87 @@
+package database.records;
+
+import tlb1.radix.database.annotations.Identifier;
+import tlb1.radix.database.annotations.RecordInclude;
+import tlb1.radix.database.annotations.TableName;
+import tlb1.radix.database.records.Record;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+@TableName("codec_tests")
+public class CodecTestRecord implements Record {
+
+    public enum Level {
+        LOW, MEDIUM, HIGH {
+            @Override
+            public String toString() {
+                return "high";
+            }
+        }
+    }
+
+    @Identifier
+    @RecordInclude
+    public long id;
+
+    @RecordInclude
+    public float ratio;
+
+    @RecordInclude
+    public short small;
+
+    @RecordInclude
+    public char letter;
+
+    @RecordInclude
+    public Instant moment;
+
+    @RecordInclude
+    public LocalDate day;
+
+    @RecordInclude
+    public BigDecimal amount;
+
+    @RecordInclude
+    public Level level;
+
+    @RecordInclude
+    public Level priority;
+
+    @RecordInclude
+    public byte[] payload;
+
+    public CodecTestRecord(long id) {
+        this.id = id;
+        this.ratio = id / 8f;
+        this.small = (short) -id;
+        this.letter = (char) ('a' + id);
+        this.moment = Instant.ofEpochMilli(1_700_000_000_000L + id);
+        this.day = LocalDate.of(2024, 2, 29).plusDays(id);
+        this.amount = new BigDecimal("12345678901234567890.12345").add(BigDecimal.valueOf(id));
+        this.level = Level.values()[(int) (id % 3)];
+        this.priority = Level.HIGH;
+        this.payload = new byte[]{1, 2, (byte) id};
+    }
+
+    public CodecTestRecord() {
+
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CodecTestRecord that)) return false;
+        return id == that.id && Float.compare(ratio, that.ratio) == 0 && small == that.small && letter == that.letter
+                && Objects.equals(moment, that.moment) && Objects.equals(day, that.day)
+                && Objects.equals(amount, that.amount) && level == that.level && priority == that.priority
+                && Arrays.equals(payload, that.payload);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, ratio, small, letter, moment, day, amount, level, priority, Arrays.hashCode(payload));
+    }
+}
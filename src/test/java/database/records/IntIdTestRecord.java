@@ -0,0 +1,27 @@
+package database.records;
+
+import tlb1.radix.database.FieldType;
+import tlb1.radix.database.annotations.DBField;
+import tlb1.radix.database.annotations.Identifier;
+import tlb1.radix.database.annotations.TableName;
+import tlb1.radix.database.records.Record;
+
+@TableName("int_id_tests")
+public class IntIdTestRecord implements Record {
+
+    @Identifier
+    @DBField(FieldType.INTEGER)
+    public int id;
+
+    @DBField(FieldType.TEXT)
+    public String name;
+
+    public IntIdTestRecord(int id) {
+        this.id = id;
+        this.name = "record " + id;
+    }
+
+    public IntIdTestRecord() {
+
+    }
+}
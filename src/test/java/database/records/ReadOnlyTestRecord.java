@@ -0,0 +1,33 @@
+package database.records;
+
+import tlb1.radix.database.FieldType;
+import tlb1.radix.database.annotations.DBField;
+import tlb1.radix.database.annotations.Identifier;
+import tlb1.radix.database.annotations.ReadOnly;
+import tlb1.radix.database.annotations.TableName;
+import tlb1.radix.database.records.Record;
+
+@TableName("read_only_tests")
+public class ReadOnlyTestRecord implements Record {
+
+    @Identifier
+    @DBField(FieldType.LONG)
+    public long id;
+
+    @DBField(FieldType.INTEGER)
+    public int value;
+
+    @ReadOnly
+    @DBField(FieldType.INTEGER)
+    public int created;
+
+    public ReadOnlyTestRecord(long id, int value, int created) {
+        this.id = id;
+        this.value = value;
+        this.created = created;
+    }
+
+    public ReadOnlyTestRecord() {
+
+    }
+}
@@ -0,0 +1,26 @@
+package database.records;
+
+import tlb1.radix.database.annotations.RecordInclude;
+import tlb1.radix.database.annotations.Reference;
+import tlb1.radix.database.annotations.TableName;
+import tlb1.radix.database.records.Record;
+
+@TableName("reference_logs")
+public class ReferenceLogTestRecord implements Record {
+
+    @Reference
+    @RecordInclude
+    public TestRecord test;
+
+    @RecordInclude
+    public String message;
+
+    public ReferenceLogTestRecord(TestRecord test, String message) {
+        this.test = test;
+        this.message = message;
+    }
+
+    public ReferenceLogTestRecord() {
+
+    }
+}
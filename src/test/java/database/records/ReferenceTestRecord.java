@@ -0,0 +1,32 @@
+package database.records;
+
+import tlb1.radix.database.FieldType;
+import tlb1.radix.database.annotations.DBField;
+import tlb1.radix.database.annotations.Identifier;
+import tlb1.radix.database.annotations.RecordInclude;
+import tlb1.radix.database.annotations.Reference;
+import tlb1.radix.database.annotations.TableName;
+import tlb1.radix.database.records.Record;
+
+import java.util.UUID;
+
+@TableName("reference_tests")
+public class ReferenceTestRecord implements Record {
+
+    @Identifier
+    @DBField(FieldType.UUID)
+    public UUID id;
+
+    @Reference
+    @RecordInclude
+    public TestRecord test;
+
+    public ReferenceTestRecord(TestRecord test) {
+        this.id = UUID.randomUUID();
+        this.test = test;
+    }
+
+    public ReferenceTestRecord() {
+
+    }
+}
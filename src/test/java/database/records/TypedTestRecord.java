@@ -0,0 +1,60 @@
+package database.records;
+
+import tlb1.radix.database.FieldType;
+import tlb1.radix.database.annotations.DBField;
+import tlb1.radix.database.annotations.Identifier;
+import tlb1.radix.database.annotations.TableName;
+import tlb1.radix.database.records.Record;
+
+import java.sql.Date;
+import java.util.Objects;
+import java.util.UUID;
+
+@TableName("typed_tests")
+public class TypedTestRecord implements Record {
+
+    @Identifier
+    @DBField(FieldType.LONG)
+    public long id;
+
+    @DBField(FieldType.BOOLEAN)
+    public boolean active;
+
+    @DBField(FieldType.BOOLEAN)
+    public Boolean flagged;
+
+    @DBField(FieldType.DATE)
+    public Date created;
+
+    @DBField(FieldType.UUID)
+    public UUID token;
+
+    @DBField(FieldType.DOUBLE)
+    public double score;
+
+    public TypedTestRecord(long id) {
+        this.id = id;
+        this.active = id % 2 == 0;
+        this.flagged = id % 3 == 0;
+        this.created = new Date(1_700_000_000_000L + id);
+        this.token = UUID.randomUUID();
+        this.score = id / 4.0;
+    }
+
+    public TypedTestRecord() {
+
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TypedTestRecord that)) return false;
+        return id == that.id && active == that.active && Double.compare(score, that.score) == 0
+                && Objects.equals(flagged, that.flagged) && Objects.equals(created, that.created)
+                && Objects.equals(token, that.token);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, active, flagged, created, token, score);
+    }
+}